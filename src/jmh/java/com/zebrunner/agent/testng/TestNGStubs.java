@@ -0,0 +1,138 @@
+package com.zebrunner.agent.testng;
+
+import org.testng.IClass;
+import org.testng.ITestClass;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.internal.ConstructorOrMethod;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.zebrunner.agent.core.registrar.TestRunRegistrar;
+
+/**
+ * Lightweight stand-ins of TestNG and agent-core objects needed to drive the agent without running TestNG
+ */
+public final class TestNGStubs {
+
+    private TestNGStubs() {
+    }
+
+    /**
+     * @return registrar which does not send anything to Zebrunner
+     */
+    public static TestRunRegistrar noOpRegistrar() {
+        return stub(TestRunRegistrar.class, Map.of());
+    }
+
+    public static ITestNGMethod method(Class<?> testClass, String methodName) {
+        Method method = Arrays.stream(testClass.getMethods())
+                              .filter(candidate -> candidate.getName().equals(methodName))
+                              .findFirst()
+                              .orElseThrow(() -> new IllegalArgumentException("There is no method " + methodName));
+        ITestClass iTestClass = stub(ITestClass.class, Map.of("getName", testClass.getName(), "getRealClass", testClass));
+
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getConstructorOrMethod", new ConstructorOrMethod(method));
+        answers.put("getTestClass", iTestClass);
+        answers.put("getRealClass", testClass);
+        answers.put("getMethodName", methodName);
+        answers.put("getQualifiedName", testClass.getName() + "." + methodName);
+        answers.put("getGroups", new String[0]);
+        answers.put("isTest", true);
+        answers.put("getInvocationCount", 1);
+        return stub(ITestNGMethod.class, answers);
+    }
+
+    /**
+     * @return test context which keeps attributes in memory
+     */
+    public static ITestContext context(ITestNGMethod... methods) {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return (ITestContext) Proxy.newProxyInstance(
+                ITestContext.class.getClassLoader(),
+                new Class<?>[]{ITestContext.class},
+                (proxy, invokedMethod, args) -> {
+                    switch (invokedMethod.getName()) {
+                        case "getAttribute":
+                            return attributes.get((String) args[0]);
+                        case "setAttribute":
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        case "removeAttribute":
+                            return attributes.remove((String) args[0]);
+                        case "getAllTestMethods":
+                            return methods;
+                        case "getName":
+                            return "stub";
+                        default:
+                            return answer(proxy, invokedMethod, args, Map.of());
+                    }
+                }
+        );
+    }
+
+    public static ITestResult result(ITestNGMethod method, ITestContext context, Object[] parameters) {
+        IClass testClass = stub(IClass.class, Map.of("getRealClass", method.getRealClass(), "getName", method.getRealClass().getName()));
+        long now = System.currentTimeMillis();
+
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getMethod", method);
+        answers.put("getTestContext", context);
+        answers.put("getParameters", parameters);
+        answers.put("getTestClass", testClass);
+        answers.put("getStartMillis", now);
+        answers.put("getEndMillis", now);
+        answers.put("getName", method.getMethodName());
+        return stub(ITestResult.class, answers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, invokedMethod, args) -> answer(proxy, invokedMethod, args, answers)
+        );
+    }
+
+    private static Object answer(Object proxy, Method invokedMethod, Object[] args, Map<String, Object> answers) {
+        String name = invokedMethod.getName();
+        if (answers.containsKey(name)) {
+            return answers.get(name);
+        }
+        switch (name) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "stub of " + invokedMethod.getDeclaringClass().getSimpleName();
+            default:
+                return defaultValue(invokedMethod.getReturnType());
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type.isArray()) {
+            return Array.newInstance(type.getComponentType(), 0);
+        }
+        return null;
+    }
+
+}
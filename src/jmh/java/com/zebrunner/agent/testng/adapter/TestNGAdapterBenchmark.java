@@ -0,0 +1,77 @@
+package com.zebrunner.agent.testng.adapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.util.concurrent.TimeUnit;
+
+import com.zebrunner.agent.testng.TestNGStubs;
+import com.zebrunner.agent.testng.core.registrar.TestRunRegistrarHolder;
+import com.zebrunner.agent.testng.listener.RunContextService;
+
+/**
+ * Measures the agent overhead of registration of a test start and finish, excluding the communication with Zebrunner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestNGAdapterBenchmark {
+
+    private TestNGAdapter adapter;
+    private ITestResult simpleResult;
+    private ITestResult parametrizedResult;
+
+    @Setup
+    public void setUp() {
+        TestRunRegistrarHolder.set(TestNGStubs.noOpRegistrar());
+        adapter = new TestNGAdapter();
+
+        ITestNGMethod simpleMethod = TestNGStubs.method(SampleTest.class, "test");
+        ITestNGMethod parametrizedMethod = TestNGStubs.method(SampleTest.class, "parametrizedTest");
+        ITestContext context = TestNGStubs.context(simpleMethod, parametrizedMethod);
+
+        simpleResult = TestNGStubs.result(simpleMethod, context, new Object[0]);
+        parametrizedResult = TestNGStubs.result(parametrizedMethod, context, new Object[]{"user@example.com", 42});
+    }
+
+    @Benchmark
+    public void registerSimpleTest() {
+        this.register(simpleResult);
+    }
+
+    @Benchmark
+    public void registerParametrizedTest() {
+        this.register(parametrizedResult);
+    }
+
+    private void register(ITestResult result) {
+        RunContextService.incrementMethodInvocationIndex(result.getMethod(), result.getTestContext());
+        adapter.registerTestStart(result);
+        adapter.registerTestFinish(result);
+    }
+
+    public static class SampleTest {
+
+        public void test() {
+        }
+
+        public void parametrizedTest(String email, int amount) {
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.zebrunner.agent.testng.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering of stacktraces of typical depths
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExceptionUtilsBenchmark {
+
+    @Param({"30", "300"})
+    private int framesCount;
+
+    private StackTraceElement[] frames;
+    private Throwable renderedThrowable;
+
+    @Setup
+    public void setUp() {
+        frames = new StackTraceElement[framesCount];
+        for (int i = 0; i < framesCount; i++) {
+            frames[i] = i % 3 == 0
+                    ? new StackTraceElement("org.testng.internal.invokers.TestInvoker", "invokeMethod", "TestInvoker.java", i)
+                    : new StackTraceElement("com.example.page.CheckoutPage" + i, "submit", "CheckoutPage.java", i);
+        }
+        renderedThrowable = this.newThrowable();
+        ExceptionUtils.getStacktrace(renderedThrowable);
+    }
+
+    @Benchmark
+    public String renderNewThrowable() {
+        return ExceptionUtils.getStacktrace(this.newThrowable());
+    }
+
+    @Benchmark
+    public String renderSameThrowable() {
+        return ExceptionUtils.getStacktrace(renderedThrowable);
+    }
+
+    private Throwable newThrowable() {
+        return new FixedStacktraceException("Expected [true] but found [false]", frames,
+                new FixedStacktraceException("Element is not clickable", frames, null));
+    }
+
+    /**
+     * Exception with predefined frames. Does not fill in the stacktrace, so creating it does not affect the measurement
+     */
+    private static class FixedStacktraceException extends RuntimeException {
+
+        private final StackTraceElement[] frames;
+
+        FixedStacktraceException(String message, StackTraceElement[] frames, Throwable cause) {
+            super(message, cause, false, false);
+            this.frames = frames;
+        }
+
+        @Override
+        public StackTraceElement[] getStackTrace() {
+            return frames.clone();
+        }
+
+    }
+
+}
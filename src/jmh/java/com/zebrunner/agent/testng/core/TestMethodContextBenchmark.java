@@ -0,0 +1,71 @@
+package com.zebrunner.agent.testng.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolution of the data provider row of a test invocation executed by a thread other than the one
+ * which retrieved the data provider rows (so the iterator index is not known)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestMethodContextBenchmark {
+
+    private static final int QUERIES_COUNT = 1024;
+
+    @Param({"10", "1000", "100000"})
+    private int dataProviderSize;
+
+    private TestMethodContext context;
+    private Object[][] sameRows;
+    private Object[][] equalRows;
+    private int query;
+
+    @Setup
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<>(dataProviderSize);
+        for (int i = 0; i < dataProviderSize; i++) {
+            rows.add(new Object[]{"user-" + i + "@example.com", i});
+        }
+        context = new TestMethodContext(MethodKey.of("org.Sample", "test", List.of("java.lang.String", "int"), -1));
+        context.setDataProviderData(rows);
+
+        Random random = new Random(42);
+        sameRows = new Object[QUERIES_COUNT][];
+        equalRows = new Object[QUERIES_COUNT][];
+        for (int i = 0; i < QUERIES_COUNT; i++) {
+            Object[] row = rows.get(random.nextInt(dataProviderSize));
+            sameRows[i] = row;
+            equalRows[i] = new Object[]{new String((String) row[0]), row[1]};
+        }
+    }
+
+    @Benchmark
+    public int referenceEqualRow() {
+        return context.getCurrentDataProviderIndex(sameRows[query++ & (QUERIES_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int valueEqualRow() {
+        return context.getCurrentDataProviderIndex(equalRows[query++ & (QUERIES_COUNT - 1)]);
+    }
+
+}
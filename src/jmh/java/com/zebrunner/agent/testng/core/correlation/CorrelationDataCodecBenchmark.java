@@ -0,0 +1,73 @@
+package com.zebrunner.agent.testng.core.correlation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+
+/**
+ * Compares the compact correlation data format against the legacy JSON format
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorrelationDataCodecBenchmark {
+
+    private TestInvocationContext context;
+    private String json;
+    private String compact;
+    private CorrelationDataReader reader;
+
+    @Setup
+    public void setUp() {
+        context = TestInvocationContext.builder()
+                                       .thread("TestNG-methods-4")
+                                       .className("com.zebrunner.carina.demo.web.CheckoutTest")
+                                       .methodName("testCheckoutWithDiscount")
+                                       .displayName("Checkout with discount")
+                                       .parameters(List.of("user@example.com", "SUMMER-2024", "42.50"))
+                                       .parameterClassNames(List.of("java.lang.String", "java.lang.String", "java.math.BigDecimal"))
+                                       .dataProviderIndex(17)
+                                       .instanceIndex(-1)
+                                       .invocationIndex(1)
+                                       .build();
+        json = context.asJsonString();
+        compact = CorrelationDataCodec.encodeCompact(context);
+        reader = new CorrelationDataReader();
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        return context.asJsonString();
+    }
+
+    @Benchmark
+    public String encodeCompact() {
+        return CorrelationDataCodec.encodeCompact(context);
+    }
+
+    @Benchmark
+    public TestInvocationContext decodeJson() {
+        return reader.read(json);
+    }
+
+    @Benchmark
+    public TestInvocationContext decodeCompact() {
+        return reader.read(compact);
+    }
+
+}
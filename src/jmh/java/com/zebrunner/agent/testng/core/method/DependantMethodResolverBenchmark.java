@@ -0,0 +1,145 @@
+package com.zebrunner.agent.testng.core.method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testng.IMethodInstance;
+import org.testng.ITestNGMethod;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolution of dependant methods of a rerun against the previous depth-first search based implementation.
+ * <p>
+ * The synthetic suite consists of classes with chains of dependant methods, and every method of a class
+ * belongs to a group the next class depends on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependantMethodResolverBenchmark {
+
+    @Param({"1000", "10000"})
+    private int methodsCount;
+
+    @Param({"10"})
+    private int methodsPerClass;
+
+    /**
+     * Percentage of the methods which are rerun
+     */
+    @Param({"10"})
+    private int rerunPercentage;
+
+    private List<IMethodInstance> methods;
+    private List<IMethodInstance> methodsForRerun;
+
+    @Setup
+    public void setUp() {
+        methods = new ArrayList<>(methodsCount);
+        for (int i = 0; i < methodsCount; i++) {
+            int classIndex = i / methodsPerClass;
+            int methodIndex = i % methodsPerClass;
+
+            String className = "org.Sample" + classIndex;
+            String[] dependsOnMethods = methodIndex > 0
+                    ? new String[]{className + ".test" + (methodIndex - 1)}
+                    : new String[0];
+            String[] dependsOnGroups = classIndex > 0 && methodIndex == 0
+                    ? new String[]{"group" + (classIndex - 1)}
+                    : new String[0];
+
+            methods.add(methodInstance(className, "test" + methodIndex, new String[]{"group" + classIndex}, dependsOnMethods, dependsOnGroups));
+        }
+
+        Random random = new Random(42);
+        methodsForRerun = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            if (random.nextInt(100) < rerunPercentage) {
+                methodsForRerun.add(method);
+            }
+        }
+    }
+
+    @Benchmark
+    public Set<IMethodInstance> legacy() {
+        return LegacyDependantMethodResolver.resolve(methods, methodsForRerun);
+    }
+
+    @Benchmark
+    public Set<IMethodInstance> dependencyGraph() {
+        return DependantMethodResolver.resolve(methods, methodsForRerun);
+    }
+
+    private static IMethodInstance methodInstance(String className,
+                                                  String methodName,
+                                                  String[] groups,
+                                                  String[] dependsOnMethods,
+                                                  String[] dependsOnGroups) {
+        String qualifiedName = className + "." + methodName;
+        ITestNGMethod method = (ITestNGMethod) Proxy.newProxyInstance(
+                ITestNGMethod.class.getClassLoader(),
+                new Class<?>[]{ITestNGMethod.class},
+                (proxy, invokedMethod, args) -> {
+                    switch (invokedMethod.getName()) {
+                        case "getQualifiedName":
+                            return qualifiedName;
+                        case "getMethodName":
+                            return methodName;
+                        case "getGroups":
+                            return groups;
+                        case "getMethodsDependedUpon":
+                            return dependsOnMethods;
+                        case "getGroupsDependedUpon":
+                            return dependsOnGroups;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return qualifiedName;
+                        default:
+                            // there is no factory instance
+                            return null;
+                    }
+                }
+        );
+        return (IMethodInstance) Proxy.newProxyInstance(
+                IMethodInstance.class.getClassLoader(),
+                new Class<?>[]{IMethodInstance.class},
+                (proxy, invokedMethod, args) -> {
+                    switch (invokedMethod.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getInstance":
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return qualifiedName;
+                        default:
+                            throw new UnsupportedOperationException(invokedMethod.getName());
+                    }
+                }
+        );
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.zebrunner.agent.testng.listener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testng.ITestNGMethod;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.zebrunner.agent.testng.TestNGStubs;
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+
+/**
+ * Measures lookups of Zebrunner test ids of a rerun
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunContextServiceBenchmark {
+
+    /**
+     * Number of tests of the previous run
+     */
+    @Param({"1000", "100000"})
+    private int testsCount;
+
+    private ITestNGMethod method;
+    private int dataProviderIndex;
+
+    @Setup
+    public void setUp() {
+        method = TestNGStubs.method(SampleTest.class, "test");
+
+        Map<TestInvocationContext, Long> contexts = new HashMap<>();
+        for (int i = 0; i < testsCount; i++) {
+            // the sampled method has a row per test, other tests belong to other methods
+            boolean sampledMethod = i % 10 == 0;
+            contexts.put(
+                    TestInvocationContext.builder()
+                                         .className(sampledMethod ? SampleTest.class.getName() : "org.Sample" + (i % 100))
+                                         .methodName("test")
+                                         .parameters(List.of("value-" + i))
+                                         .parameterClassNames(List.of("java.lang.String"))
+                                         .dataProviderIndex(i)
+                                         .instanceIndex(-1)
+                                         .invocationIndex(1)
+                                         .build(),
+                    (long) i
+            );
+        }
+        RunContextService.addInvocationContexts(contexts);
+    }
+
+    @Benchmark
+    public Optional<Long> getZebrunnerTestIdOnRerun() {
+        dataProviderIndex = (dataProviderIndex + 10) % testsCount;
+        return RunContextService.getZebrunnerTestIdOnRerun(method, dataProviderIndex);
+    }
+
+    @Benchmark
+    public boolean isEligibleForRerun() {
+        return RunContextService.isEligibleForRerun(method);
+    }
+
+    public static class SampleTest {
+
+        public void test(String value) {
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+/**
+ * I/O-bound tests which are executed concurrently. Every tenth instance fails on the first attempt and passes on retry.
+ */
+public class ConcurrentStressTest {
+
+    private final int index;
+    private volatile boolean failed;
+
+    public ConcurrentStressTest(int index) {
+        this.index = index;
+    }
+
+    @Factory
+    public static Object[] instances() {
+        Object[] instances = new Object[Integer.getInteger("stress.concurrent-instances", 5_000)];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new ConcurrentStressTest(i);
+        }
+        return instances;
+    }
+
+    @Test(retryAnalyzer = RetryOnce.class)
+    public void test() throws InterruptedException {
+        Thread.sleep(Long.getLong("stress.concurrent-sleep-millis", 5));
+        if (index % 10 == 0 && !failed) {
+            failed = true;
+            throw new AssertionError("First attempt of instance " + index + " fails");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentStressTest-" + index;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+
+public class DataProviderStressTest {
+
+    @DataProvider
+    public static Iterator<Object[]> rows() {
+        return StressSuites.rows(Integer.getInteger("stress.data-provider-rows", 10_000));
+    }
+
+    @Test(dataProvider = "rows")
+    public void test(String email, int amount) {
+    }
+
+}
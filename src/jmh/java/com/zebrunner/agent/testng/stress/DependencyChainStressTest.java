@@ -0,0 +1,129 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class DependencyChainStressTest {
+
+    private final int index;
+
+    // instances are created with distinct factory parameters, since TestNG distinguishes them by the parameters
+    // when resolving the methods they depend on
+    @Factory(dataProvider = "indices")
+    public DependencyChainStressTest(int index) {
+        this.index = index;
+    }
+
+    @DataProvider
+    public static Iterator<Object[]> indices() {
+        int count = Integer.getInteger("stress.chain-instances", 100);
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new Object[]{index++};
+            }
+
+        };
+    }
+
+    @Test
+    public void step01() {
+    }
+
+    @Test(dependsOnMethods = "step01")
+    public void step02() {
+    }
+
+    @Test(dependsOnMethods = "step02")
+    public void step03() {
+    }
+
+    @Test(dependsOnMethods = "step03")
+    public void step04() {
+    }
+
+    @Test(dependsOnMethods = "step04")
+    public void step05() {
+    }
+
+    @Test(dependsOnMethods = "step05")
+    public void step06() {
+    }
+
+    @Test(dependsOnMethods = "step06")
+    public void step07() {
+    }
+
+    @Test(dependsOnMethods = "step07")
+    public void step08() {
+    }
+
+    @Test(dependsOnMethods = "step08")
+    public void step09() {
+    }
+
+    @Test(dependsOnMethods = "step09")
+    public void step10() {
+    }
+
+    @Test(dependsOnMethods = "step10")
+    public void step11() {
+    }
+
+    @Test(dependsOnMethods = "step11")
+    public void step12() {
+    }
+
+    @Test(dependsOnMethods = "step12")
+    public void step13() {
+    }
+
+    @Test(dependsOnMethods = "step13")
+    public void step14() {
+    }
+
+    @Test(dependsOnMethods = "step14")
+    public void step15() {
+    }
+
+    @Test(dependsOnMethods = "step15")
+    public void step16() {
+    }
+
+    @Test(dependsOnMethods = "step16")
+    public void step17() {
+    }
+
+    @Test(dependsOnMethods = "step17")
+    public void step18() {
+    }
+
+    @Test(dependsOnMethods = "step18")
+    public void step19() {
+    }
+
+    @Test(dependsOnMethods = "step19")
+    public void step20() {
+    }
+
+    @Override
+    public String toString() {
+        return "DependencyChainStressTest-" + index;
+    }
+
+}
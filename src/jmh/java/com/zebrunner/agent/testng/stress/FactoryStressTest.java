@@ -0,0 +1,68 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+public class FactoryStressTest {
+
+    private final int index;
+
+    public FactoryStressTest(int index) {
+        this.index = index;
+    }
+
+    @Factory
+    public static Object[] instances() {
+        Object[] instances = new Object[Integer.getInteger("stress.factory-instances", 10_000)];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new FactoryStressTest(i);
+        }
+        return instances;
+    }
+
+    @Test
+    public void test0() {
+    }
+
+    @Test
+    public void test1() {
+    }
+
+    @Test
+    public void test2() {
+    }
+
+    @Test
+    public void test3() {
+    }
+
+    @Test
+    public void test4() {
+    }
+
+    @Test
+    public void test5() {
+    }
+
+    @Test
+    public void test6() {
+    }
+
+    @Test
+    public void test7() {
+    }
+
+    @Test
+    public void test8() {
+    }
+
+    @Test
+    public void test9() {
+    }
+
+    @Override
+    public String toString() {
+        return "FactoryStressTest-" + index;
+    }
+
+}
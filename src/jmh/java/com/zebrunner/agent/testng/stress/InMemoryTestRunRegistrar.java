@@ -0,0 +1,105 @@
+package com.zebrunner.agent.testng.stress;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zebrunner.agent.core.registrar.TestRunRegistrar;
+import com.zebrunner.agent.core.registrar.domain.TestFinish;
+import com.zebrunner.agent.core.registrar.domain.TestRunFinish;
+import com.zebrunner.agent.core.registrar.domain.TestRunStart;
+import com.zebrunner.agent.core.registrar.domain.TestStart;
+
+/**
+ * Stand-in of the Zebrunner registrar which keeps the reported tests in memory instead of sending them to Zebrunner.
+ * Like the Zebrunner registrar, it tracks the tests which are started and not finished yet.
+ * A test started with the id of another running test is counted as an id collision.
+ */
+class InMemoryTestRunRegistrar implements TestRunRegistrar {
+
+    private final Map<String, TestStart> startedTests = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> currentTestId = new ThreadLocal<>();
+
+    private final AtomicLong startedTestsCount = new AtomicLong();
+    private final AtomicLong finishedTestsCount = new AtomicLong();
+    private final AtomicLong headlessTestsCount = new AtomicLong();
+    private final AtomicLong idCollisionsCount = new AtomicLong();
+
+    @Override
+    public void registerStart(TestRunStart testRunStart) {
+    }
+
+    @Override
+    public void registerFinish(TestRunFinish testRunFinish) {
+    }
+
+    @Override
+    public void registerHeadlessTestStart(String id, TestStart testStart) {
+        headlessTestsCount.incrementAndGet();
+        this.registerTestStart(id, testStart);
+    }
+
+    @Override
+    public void registerTestStart(String id, TestStart testStart) {
+        startedTestsCount.incrementAndGet();
+        if (startedTests.put(id, testStart) != null) {
+            idCollisionsCount.incrementAndGet();
+        }
+        currentTestId.set(id);
+    }
+
+    @Override
+    public boolean isTestStarted() {
+        return currentTestId.get() != null;
+    }
+
+    @Override
+    public boolean isTestStarted(String id) {
+        return startedTests.containsKey(id);
+    }
+
+    @Override
+    public void registerTestFinish(String id, TestFinish testFinish) {
+        finishedTestsCount.incrementAndGet();
+        startedTests.remove(id);
+        currentTestId.remove();
+    }
+
+    @Override
+    public void registerAfterTestStart() {
+    }
+
+    @Override
+    public void registerAfterTestFinish() {
+    }
+
+    @Override
+    public boolean isKnownIssueAttachedToTest(String failureStacktrace) {
+        return false;
+    }
+
+    @Override
+    public void clearConfigurationLogs() {
+    }
+
+    long getStartedTestsCount() {
+        return startedTestsCount.get();
+    }
+
+    long getFinishedTestsCount() {
+        return finishedTestsCount.get();
+    }
+
+    long getHeadlessTestsCount() {
+        return headlessTestsCount.get();
+    }
+
+    long getIdCollisionsCount() {
+        return idCollisionsCount.get();
+    }
+
+    int countUnfinishedTests() {
+        return startedTests.size();
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+public class RetryOnce implements IRetryAnalyzer {
+
+    private int retriesCount;
+
+    @Override
+    public boolean retry(ITestResult result) {
+        return retriesCount++ < 1;
+    }
+
+}
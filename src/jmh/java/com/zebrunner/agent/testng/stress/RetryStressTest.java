@@ -0,0 +1,26 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RetryStressTest {
+
+    private static final Set<String> FAILED_ROWS = ConcurrentHashMap.newKeySet();
+
+    @DataProvider
+    public static Iterator<Object[]> rows() {
+        return StressSuites.rows(Integer.getInteger("stress.retry-rows", 1_000));
+    }
+
+    @Test(dataProvider = "rows", retryAnalyzer = RetryOnce.class)
+    public void test(String email, int amount) {
+        if (FAILED_ROWS.add(email)) {
+            throw new AssertionError("First attempt of " + email + " fails");
+        }
+    }
+
+}
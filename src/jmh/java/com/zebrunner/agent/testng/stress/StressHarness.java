@@ -0,0 +1,198 @@
+package com.zebrunner.agent.testng.stress;
+
+import com.google.gson.Gson;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zebrunner.agent.testng.core.registrar.TestRunRegistrarHolder;
+import com.zebrunner.agent.testng.listener.DataProviderInterceptor;
+import com.zebrunner.agent.testng.listener.TestRunListener;
+
+/**
+ * Runs the synthetic {@link StressSuites stress suite} with and without the agent and reports the agent overhead.
+ * <p>
+ * Every mode is run in a separate JVM, so the agent state and JIT compilation of one mode do not affect the other one.
+ * The agent reports to {@link InMemoryTestRunRegistrar} instead of Zebrunner. The allocated bytes are measured
+ * for the main thread which runs TestNG, so they do not include allocations of the concurrently executed tests.
+ * Concurrent tests run on unnamed (virtual, if supported by the runtime) threads, and the run with the agent fails
+ * if test ids collide or some of the reported tests are not finished.
+ * <p>
+ * Usage: {@code gradle stressTest -Pstress.factory-instances=10000 -Pstress.data-provider-rows=10000}
+ */
+public final class StressHarness {
+
+    private static final String RESULT_PREFIX = "stress-result: ";
+
+    private enum Mode {
+        BASELINE, AGENT
+    }
+
+    private StressHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1) {
+            Result result = run(Mode.valueOf(args[0]));
+            System.out.println(RESULT_PREFIX + new Gson().toJson(result));
+            return;
+        }
+
+        System.out.println("Concurrent tests run on " + (UnnamedThreadExecutorFactory.isVirtualThreadsSupported()
+                ? "virtual threads"
+                : "unnamed platform threads (virtual threads are not supported by the runtime)"));
+        Result baseline = fork(Mode.BASELINE);
+        Result agent = fork(Mode.AGENT);
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-10s %10s %12s %16s %14s %16s%n",
+                "Mode", "Tests", "Time, ms", "Allocated, MB", "Heap, MB", "Reported tests");
+        print(baseline);
+        print(agent);
+        System.out.printf(Locale.ROOT, "%-10s %10s %12d %16.1f %14.1f%n",
+                "Overhead", "",
+                agent.wallMillis - baseline.wallMillis,
+                toMegabytes(agent.allocatedBytes - baseline.allocatedBytes),
+                toMegabytes(agent.retainedHeapBytes - baseline.retainedHeapBytes));
+    }
+
+    private static Result run(Mode mode) {
+        TestNG testng = new TestNG();
+        testng.setXmlSuites(List.of(StressSuites.create()));
+        testng.setUseDefaultListeners(false);
+        testng.setVerbose(0);
+        testng.setExecutorFactory(new UnnamedThreadExecutorFactory());
+
+        InMemoryTestRunRegistrar registrar = new InMemoryTestRunRegistrar();
+        if (mode == Mode.AGENT) {
+            TestRunRegistrarHolder.set(registrar);
+        } else {
+            testng.setListenersToSkipFromBeingWiredInViaServiceLoaders(
+                    TestRunListener.class.getName(),
+                    DataProviderInterceptor.class.getName()
+            );
+        }
+        ResultCounter resultCounter = new ResultCounter();
+        testng.addListener(resultCounter);
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long startedAt = System.nanoTime();
+
+        testng.run();
+
+        Result result = new Result();
+        result.mode = mode.name();
+        result.wallMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        result.allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore;
+        result.retainedHeapBytes = retainedHeapBytes();
+        result.testsCount = resultCounter.count.get();
+        result.reportedTestsCount = registrar.getFinishedTestsCount();
+        result.unfinishedReportedTestsCount = registrar.countUnfinishedTests();
+        result.idCollisionsCount = registrar.getIdCollisionsCount();
+
+        if (mode == Mode.AGENT && (result.unfinishedReportedTestsCount != 0 || result.idCollisionsCount != 0)) {
+            throw new IllegalStateException(String.format(
+                    "Reported tests are inconsistent: %d test(s) are not finished, %d test id collision(s)",
+                    result.unfinishedReportedTestsCount, result.idCollisionsCount
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * @return heap used after garbage collection while TestNG and agent objects are still reachable from static state
+     */
+    private static long retainedHeapBytes() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static Result fork(Mode mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        System.getProperties().stringPropertyNames().stream()
+              .filter(name -> name.startsWith("stress.") || name.startsWith("reporting."))
+              .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        String maxHeap = System.getProperty("stress.max-heap", "4g");
+        command.add("-Xmx" + maxHeap);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StressHarness.class.getName());
+        command.add(mode.name());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Result result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = new Gson().fromJson(line.substring(RESULT_PREFIX.length()), Result.class);
+                } else {
+                    System.out.println("[" + mode + "] " + line);
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("Stress run in " + mode + " mode has failed");
+        }
+        return result;
+    }
+
+    private static void print(Result result) {
+        System.out.printf(Locale.ROOT, "%-10s %10d %12d %16.1f %14.1f %16d%n",
+                result.mode, result.testsCount, result.wallMillis,
+                toMegabytes(result.allocatedBytes), toMegabytes(result.retainedHeapBytes), result.reportedTestsCount);
+    }
+
+    private static double toMegabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    private static class Result {
+
+        private String mode;
+        private long wallMillis;
+        private long allocatedBytes;
+        private long retainedHeapBytes;
+        private long testsCount;
+        private long reportedTestsCount;
+        private long unfinishedReportedTestsCount;
+        private long idCollisionsCount;
+
+    }
+
+    public static class ResultCounter implements ITestListener {
+
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void onTestSuccess(ITestResult result) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void onTestFailure(ITestResult result) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void onTestSkipped(ITestResult result) {
+            count.incrementAndGet();
+        }
+
+    }
+
+}
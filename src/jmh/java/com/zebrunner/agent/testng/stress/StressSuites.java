@@ -0,0 +1,73 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlSuite.ParallelMode;
+import org.testng.xml.XmlTest;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Builds the stress suite of synthetic test classes. Sizes are defined by system properties:
+ * <ul>
+ *     <li>{@code stress.factory-instances} - instances of {@link FactoryStressTest} with 10 test methods (10 000 by default);</li>
+ *     <li>{@code stress.data-provider-rows} - rows of {@link DataProviderStressTest} (10 000 by default);</li>
+ *     <li>{@code stress.chain-instances} - instances of {@link DependencyChainStressTest} with a chain of 20 dependant methods (100 by default);</li>
+ *     <li>{@code stress.retry-rows} - rows of {@link RetryStressTest} which tests fail once and pass on retry (1 000 by default);</li>
+ *     <li>{@code stress.concurrent-instances} - instances of {@link ConcurrentStressTest} (5 000 by default);</li>
+ *     <li>{@code stress.concurrent-threads} - number of threads running {@link ConcurrentStressTest} (1 000 by default);</li>
+ *     <li>{@code stress.concurrent-sleep-millis} - duration of a {@link ConcurrentStressTest} test (5 ms by default).</li>
+ * </ul>
+ */
+final class StressSuites {
+
+    private StressSuites() {
+    }
+
+    static XmlSuite create() {
+        XmlSuite suite = new XmlSuite();
+        suite.setName("Stress suite");
+
+        XmlTest test = new XmlTest(suite);
+        test.setName("Stress test");
+        test.setXmlClasses(List.of(
+                new XmlClass(FactoryStressTest.class),
+                new XmlClass(DataProviderStressTest.class),
+                new XmlClass(DependencyChainStressTest.class),
+                new XmlClass(RetryStressTest.class)
+        ));
+
+        XmlTest concurrentTest = new XmlTest(suite);
+        concurrentTest.setName("Concurrent stress test");
+        concurrentTest.setParallel(ParallelMode.METHODS);
+        concurrentTest.setThreadCount(Integer.getInteger("stress.concurrent-threads", 1_000));
+        concurrentTest.setXmlClasses(List.of(new XmlClass(ConcurrentStressTest.class)));
+        return suite;
+    }
+
+    static Iterator<Object[]> rows(int count) {
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = {"user-" + index + "@example.com", index};
+                index++;
+                return row;
+            }
+
+        };
+    }
+
+}
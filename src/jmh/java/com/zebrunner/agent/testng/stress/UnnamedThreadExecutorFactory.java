@@ -0,0 +1,71 @@
+package com.zebrunner.agent.testng.stress;
+
+import org.testng.IDynamicGraph;
+import org.testng.ISuite;
+import org.testng.ITestNGMethod;
+import org.testng.internal.thread.graph.GraphThreadPoolExecutor;
+import org.testng.thread.IExecutorFactory;
+import org.testng.thread.ITestNGThreadPoolExecutor;
+import org.testng.thread.IThreadWorkerFactory;
+
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.zebrunner.agent.testng.core.VirtualThreads;
+
+/**
+ * Runs parallel tests on virtual threads, or on unnamed platform threads if the runtime does not support virtual threads.
+ * Either way, the worker threads have the same (empty) name.
+ */
+public class UnnamedThreadExecutorFactory implements IExecutorFactory {
+
+    @Override
+    public ITestNGThreadPoolExecutor newSuiteExecutor(String name,
+                                                      IDynamicGraph<ISuite> graph,
+                                                      IThreadWorkerFactory<ISuite> factory,
+                                                      int corePoolSize,
+                                                      int maximumPoolSize,
+                                                      long keepAliveTime,
+                                                      TimeUnit unit,
+                                                      BlockingQueue<Runnable> workQueue,
+                                                      Comparator<ISuite> comparator) {
+        return this.withUnnamedThreads(new GraphThreadPoolExecutor<>(
+                name, graph, factory, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, comparator
+        ));
+    }
+
+    @Override
+    public ITestNGThreadPoolExecutor newTestMethodExecutor(String name,
+                                                           IDynamicGraph<ITestNGMethod> graph,
+                                                           IThreadWorkerFactory<ITestNGMethod> factory,
+                                                           int corePoolSize,
+                                                           int maximumPoolSize,
+                                                           long keepAliveTime,
+                                                           TimeUnit unit,
+                                                           BlockingQueue<Runnable> workQueue,
+                                                           Comparator<ITestNGMethod> comparator) {
+        return this.withUnnamedThreads(new GraphThreadPoolExecutor<>(
+                name, graph, factory, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, comparator
+        ));
+    }
+
+    private <T> GraphThreadPoolExecutor<T> withUnnamedThreads(GraphThreadPoolExecutor<T> executor) {
+        ThreadFactory threadFactory = VirtualThreads.newThreadFactory("");
+        if (threadFactory == null) {
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "");
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        executor.setThreadFactory(threadFactory);
+        return executor;
+    }
+
+    static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.newThreadFactory("") != null;
+    }
+
+}
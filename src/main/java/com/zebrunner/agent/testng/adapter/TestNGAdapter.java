@@ -13,8 +13,9 @@ import java.lang.reflect.Method;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import com.zebrunner.agent.core.config.ConfigurationHolder;
@@ -30,9 +31,15 @@ import com.zebrunner.agent.core.registrar.maintainer.ChainedMaintainerResolver;
 import com.zebrunner.agent.testng.core.ExceptionUtils;
 import com.zebrunner.agent.testng.core.FactoryInstanceHolder;
 import com.zebrunner.agent.testng.core.RootXmlSuiteLabelAssigner;
+import com.zebrunner.agent.testng.core.TestIdRegistry;
 import com.zebrunner.agent.testng.core.TestInvocationContext;
 import com.zebrunner.agent.testng.core.config.RootXmlSuiteConfigurationProvider;
+import com.zebrunner.agent.testng.core.correlation.CorrelationDataCodec;
+import com.zebrunner.agent.testng.core.cucumber.CucumberSupport;
 import com.zebrunner.agent.testng.core.maintainer.RootXmlSuiteMaintainerResolver;
+import com.zebrunner.agent.testng.core.metrics.AgentMetrics;
+import com.zebrunner.agent.testng.core.registrar.TestRunRegistrarHolder;
+import com.zebrunner.agent.testng.core.sharding.DurationHistory;
 import com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry;
 import com.zebrunner.agent.testng.listener.RetryService;
 import com.zebrunner.agent.testng.listener.RunContextService;
@@ -47,10 +54,9 @@ public class TestNGAdapter {
 
     private XmlSuite rootXmlSuite;
 
-    private static final AtomicBoolean CUCUMBER = new AtomicBoolean(true);
 
     public TestNGAdapter() {
-        this.registrar = TestRunRegistrar.getInstance();
+        this.registrar = TestRunRegistrarHolder.get();
     }
 
     public void registerRunStart(ISuite suite) {
@@ -79,7 +85,10 @@ public class TestNGAdapter {
 
     public void registerRunFinish(ISuite suite) {
         if (suite.getXmlSuite().getParentSuite() == null) {
+            // in case of async reporting, the registrar flushes all pending test events before the run is finished
             registrar.registerFinish(new TestRunFinish(Instant.now()));
+            AgentMetrics.writeSummary();
+            DurationHistory.write();
         }
     }
 
@@ -88,12 +97,12 @@ public class TestNGAdapter {
             log.debug("TestNGAdapter -> registerTestStart: retry is finished");
 
             TestInvocationContext testContext = this.buildTestStartInvocationContext(testResult);
-            String correlationData = testContext.asJsonString();
+            String correlationData = CorrelationDataCodec.encode(testContext);
             TestStart testStart = this.buildTestStart(correlationData, testResult);
 
             this.setZebrunnerTestIdOnRerun(testResult, testResult.getMethod(), testStart);
 
-            String id = this.generateTestId(testContext);
+            String id = this.getTestId(testResult.getMethod(), testContext);
             registrar.registerTestStart(id, testStart);
         } else {
             log.debug("TestNGAdapter -> registerTestStart: retry is NOT finished");
@@ -105,13 +114,11 @@ public class TestNGAdapter {
             if (isRetryFinished(nextTestMethod, testResult.getTestContext())) {
                 log.debug("TestNGAdapter -> registerHeadlessTestStart: retry is finished");
 
-                TestInvocationContext testContext = this.buildTestStartInvocationContext(testResult);
                 TestStart testStart = this.buildTestStart(null, testResult);
 
                 this.setZebrunnerTestIdOnRerun(testResult, nextTestMethod, testStart);
 
-                String id = generateTestId(testContext);
-                registrar.registerHeadlessTestStart(id, testStart);
+                registrar.registerHeadlessTestStart(TestIdRegistry.allocateHeadless(), testStart);
             } else {
                 log.debug("TestNGAdapter -> registerHeadlessTestStart: retry is NOT finished");
             }
@@ -177,27 +184,10 @@ public class TestNGAdapter {
             dataProviderIndex = null;
         }
 
-        if (CUCUMBER.get()) {
-            try {
-                Class<?> pickleWrapperClass = Class.forName("io.cucumber.testng.PickleWrapper");
-                Class<?> featureWrapperClass = Class.forName("io.cucumber.testng.FeatureWrapper");
-                String featureName = Arrays.stream(parameters)
-                                           .filter(featureWrapperClass::isInstance)
-                                           .map(Object::toString)
-                                           .map(feature -> feature.replaceAll("^\"|\"$", ""))
-                                           .findAny()
-                                           .orElseThrow(ClassNotFoundException::new);
-                String pickleName = Arrays.stream(parameters)
-                                          .filter(pickleWrapperClass::isInstance)
-                                          .map(Object::toString)
-                                          .map(pickle -> pickle.replaceAll("^\"|\"$", ""))
-                                          .findAny()
-                                          .orElseThrow(ClassNotFoundException::new);
-                realClassName = featureName;
-                methodName = pickleName;
-            } catch (ClassNotFoundException e) {
-                CUCUMBER.set(false);
-            }
+        Optional<Map.Entry<String, String>> cucumberScenarioName = CucumberSupport.getScenarioName(parameters);
+        if (cucumberScenarioName.isPresent()) {
+            realClassName = cucumberScenarioName.get().getKey();
+            methodName = cucumberScenarioName.get().getValue();
         }
 
         return TestStart.builder()
@@ -219,20 +209,20 @@ public class TestNGAdapter {
 
         TestFinish testFinish = new TestFinish(Status.PASSED, endedAt);
 
-        TestInvocationContext testContext = buildTestFinishInvocationContext(testResult);
-        String id = generateTestId(testContext);
+        String id = this.getTestId(testResult);
         registrar.registerTestFinish(id, testFinish);
+        TestIdRegistry.release(id);
+        this.recordDuration(testResult);
 
         // forcibly disable retry otherwise passed can't be registered in reporting tool!
-        RetryService.setRetryFinished(testResult.getMethod(), testResult.getTestContext());
+        RetryService.setRetryFinished(testResult);
     }
 
     public void registerFailedTestFinish(ITestResult testResult) {
         if (isRetryFinished(testResult.getMethod(), testResult.getTestContext())) {
             log.debug("TestNGAdapter -> registerFailedTestFinish: retry is finished");
 
-            TestInvocationContext testContext = buildTestFinishInvocationContext(testResult);
-            String id = generateTestId(testContext);
+            String id = this.getTestId(testResult);
 
             if (!registrar.isTestStarted(id)) {
                 registerTestStart(testResult);
@@ -247,6 +237,8 @@ public class TestNGAdapter {
                     : Status.FAILED;
             TestFinish result = new TestFinish(status, endedAt, errorMessage);
             registrar.registerTestFinish(id, result);
+            TestIdRegistry.release(id);
+            this.recordDuration(testResult);
         } else {
             log.debug("TestNGAdapter -> registerFailedTestFinish: retry is NOT finished");
         }
@@ -256,36 +248,39 @@ public class TestNGAdapter {
         if (isRetryFinished(testResult.getMethod(), testResult.getTestContext())) {
             log.debug("TestNGAdapter -> registerSkippedTestFinish: retry is finished");
 
-            TestInvocationContext testContext = buildTestFinishInvocationContext(testResult);
-            String id = generateTestId(testContext);
+            String id = this.getTestId(testResult);
 
             Instant endedAt = Instant.ofEpochMilli(testResult.getEndMillis());
             String errorMessage = ExceptionUtils.getStacktrace(testResult.getThrowable());
 
             TestFinish result = new TestFinish(Status.SKIPPED, endedAt, errorMessage);
             registrar.registerTestFinish(id, result);
+            TestIdRegistry.release(id);
         } else {
             log.debug("TestNGAdapter -> registerSkippedTestFinish: retry is NOT finished");
         }
     }
 
-    private TestInvocationContext buildTestFinishInvocationContext(ITestResult testResult) {
+    private void recordDuration(ITestResult testResult) {
+        if (DurationHistory.isRecordingEnabled()) {
+            ITestNGMethod testMethod = testResult.getMethod();
+            int dataProviderIndex = RunContextService.getCurrentDataProviderIndex(testMethod, testResult.getTestContext(), testResult.getParameters());
+            DurationHistory.record(testMethod, dataProviderIndex, testResult.getEndMillis() - testResult.getStartMillis());
+        }
+    }
+
+    private String getTestId(ITestResult testResult) {
         ITestNGMethod testMethod = testResult.getMethod();
         ITestContext testContext = testResult.getTestContext();
-        Object[] parameters = testResult.getParameters();
 
-        int dataProviderIndex = RunContextService.getCurrentDataProviderIndex(testMethod, testContext, parameters);
-//        if (dataProviderIndex == -1) {
-//            // if the data provider data has been modified during the test,
-//            // then the parameters at the end of the test will not be equal to the parameters at the start of the test.
-//            // for such cases, we try to memorize the original method arguments in thread-local variable
-//            // and search by them here
-//            parameters = testStartDataProviderData.get();
-//            RunContextService.getCurrentDataProviderIndex(testMethod, testContext, parameters);
-//        }
+        int dataProviderIndex = RunContextService.getCurrentDataProviderIndex(testMethod, testContext, testResult.getParameters());
         int invocationIndex = RunContextService.getMethodInvocationIndex(testMethod, testContext);
 
-        return buildTestInvocationContext(testMethod, dataProviderIndex, parameters, invocationIndex);
+        return TestIdRegistry.getOrAllocate(testMethod, dataProviderIndex, invocationIndex);
+    }
+
+    private String getTestId(ITestNGMethod testMethod, TestInvocationContext testContext) {
+        return TestIdRegistry.getOrAllocate(testMethod, testContext.getDataProviderIndex(), testContext.getInvocationIndex());
     }
 
     public void registerAfterTestStart() {
@@ -333,8 +328,4 @@ public class TestNGAdapter {
         return RetryService.isRetryFinished(method, context);
     }
 
-    private String generateTestId(TestInvocationContext testInvocationContext) {
-        return testInvocationContext.toString();
-    }
-
 }
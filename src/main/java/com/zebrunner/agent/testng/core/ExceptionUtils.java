@@ -3,20 +3,33 @@ package com.zebrunner.agent.testng.core;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class ExceptionUtils {
 
+    private static final StacktraceRenderer STACKTRACE_RENDERER = new StacktraceRenderer(
+            TestNGAgentConfiguration.getStacktraceMaxLength(),
+            TestNGAgentConfiguration.getStacktraceMaxFrames(),
+            TestNGAgentConfiguration.isStacktraceFrameworkFramesCollapsed()
+    );
+
+    /**
+     * @return stacktrace of the throwable, optionally limited in size. See {@link StacktraceRenderer} for details
+     */
     public static String getStacktrace(Throwable throwable) {
         if (throwable != null) {
-            StringWriter errorMessageStringWriter = new StringWriter();
-            throwable.printStackTrace(new PrintWriter(errorMessageStringWriter));
-            return errorMessageStringWriter.toString();
+            return STACKTRACE_RENDERER.render(throwable);
         } else {
             return "";
         }
     }
 
+    /**
+     * Releases the stacktrace memoized for the current thread
+     */
+    public static void releaseStacktrace() {
+        STACKTRACE_RENDERER.release();
+    }
+
 }
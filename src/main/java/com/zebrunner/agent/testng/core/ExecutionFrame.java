@@ -0,0 +1,107 @@
+package com.zebrunner.agent.testng.core;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of the test method invocation which is currently executed by a thread.
+ * <p>
+ * There is a single frame per thread regardless of the number of test methods. The frame is bound to a test method
+ * and is reset once a thread starts to work with another test method. The frame is only accessed by its thread.
+ * <p>
+ * Every invocation is identified by an execution id allocated from a sequence, so the identity of an invocation
+ * and its retries does not depend on the name or id of the executing thread (virtual threads are unnamed and
+ * their number is not bounded). The frame is removed once the invocation is finished,
+ * so pooled and virtual threads do not retain it between invocations.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ExecutionFrame {
+
+    private static final ThreadLocal<ExecutionFrame> CURRENT = ThreadLocal.withInitial(ExecutionFrame::new);
+    private static final AtomicLong EXECUTION_ID_SEQUENCE = new AtomicLong();
+
+    private MethodKey methodKey;
+    /**
+     * Id of the current invocation. 0 means that the id is not allocated yet
+     */
+    private long executionId;
+    /**
+     * Index of the last data provider row retrieved by the thread. -1 if data provider rows are retrieved by another thread
+     */
+    private int dataProviderIteratorIndex = -1;
+    /**
+     * Index of the current test method invocation. 0 means that method was not invoked by the thread yet.
+     */
+    private int invocationIndex;
+    private Object[] parameters;
+    private Integer dataProviderIndex;
+
+    /**
+     * @return frame of the current thread bound to the given test method
+     */
+    public static ExecutionFrame bind(MethodKey methodKey) {
+        ExecutionFrame frame = CURRENT.get();
+        if (!methodKey.equals(frame.methodKey)) {
+            frame.methodKey = methodKey;
+            frame.executionId = 0;
+            frame.dataProviderIteratorIndex = -1;
+            frame.invocationIndex = 0;
+            frame.parameters = null;
+            frame.dataProviderIndex = null;
+        }
+        return frame;
+    }
+
+    /**
+     * @return frame of the current thread if it is bound to the given test method, otherwise null
+     */
+    public static ExecutionFrame find(MethodKey methodKey) {
+        ExecutionFrame frame = CURRENT.get();
+        return methodKey.equals(frame.methodKey) ? frame : null;
+    }
+
+    /**
+     * @return id of the invocation which is currently executed by the thread. The id is kept until the invocation
+     * (including its retries) is finished or the thread starts to work with another test method
+     */
+    public static long currentExecutionId() {
+        return CURRENT.get().getExecutionId();
+    }
+
+    /**
+     * Removes the frame of the finished invocation. Must not be invoked while the invocation is being retried,
+     * since retries share the execution id and indices of the invocation.
+     */
+    public static void release() {
+        CURRENT.remove();
+    }
+
+    public long getExecutionId() {
+        if (executionId == 0) {
+            executionId = EXECUTION_ID_SEQUENCE.incrementAndGet();
+        }
+        return executionId;
+    }
+
+    public void setDataProviderIteratorIndex(int dataProviderIteratorIndex) {
+        this.dataProviderIteratorIndex = dataProviderIteratorIndex;
+    }
+
+    /**
+     * Starts a new invocation of the bound test method. Retries of the invocation do not start a new one
+     */
+    public void startInvocation(int invocationIndex) {
+        this.invocationIndex = invocationIndex;
+        this.executionId = EXECUTION_ID_SEQUENCE.incrementAndGet();
+    }
+
+    public void setParameters(Object[] parameters, Integer dataProviderIndex) {
+        this.parameters = parameters;
+        this.dataProviderIndex = dataProviderIndex;
+    }
+
+}
@@ -4,13 +4,10 @@ import org.testng.ITestClass;
 import org.testng.ITestNGMethod;
 import org.testng.internal.ParameterInfo;
 
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * Needed to recognize current factory instance on runtime
@@ -18,30 +15,39 @@ import java.util.stream.Collectors;
 public class FactoryInstanceHolder {
 
     /**
-     * Collection of factory test class names and all of their instances hash codes
+     * Collection of factory test class names and indices of all of their instances.
+     * Instances are compared by reference. The index maps are not modified once registered.
      */
-    private static final Map<String, List<Object>> CLASS_NAME_TO_INSTANCES = new ConcurrentHashMap<>();
+    private static final Map<String, Map<Object, Integer>> CLASS_NAME_TO_INSTANCE_INDICES = new ConcurrentHashMap<>();
 
     /**
-     * Test class instance hash codes are registered in ordered fashion - that way can keep explicitly track instances
-     * order that would allow to select specific class instance for rerun
+     * Test class instances are registered in ordered fashion - that way can keep explicitly track instances
+     * order that would allow to select specific class instance for rerun.
+     * Instances of already registered test classes are not collected again.
      *
      * @param testClasses test classes
      */
     public static void registerInstances(Collection<ITestClass> testClasses) {
         testClasses.forEach(testClass -> {
             String className = testClass.getName();
-            List<Object> instances = getInstances(testClass);
-            if (!instances.isEmpty()) { // can be empty if not a factory test class - ignored in such case
-                CLASS_NAME_TO_INSTANCES.putIfAbsent(className, instances);
+            if (!CLASS_NAME_TO_INSTANCE_INDICES.containsKey(className)) {
+                Map<Object, Integer> instanceIndices = getInstanceIndices(testClass);
+                if (!instanceIndices.isEmpty()) { // can be empty if not a factory test class - ignored in such case
+                    CLASS_NAME_TO_INSTANCE_INDICES.putIfAbsent(className, instanceIndices);
+                }
             }
         });
     }
 
-    private static List<Object> getInstances(ITestClass testClass) {
-        return Arrays.stream(testClass.getInstances(true))
-                     .map(o -> o instanceof ParameterInfo ? ((ParameterInfo) o).getInstance() : o)
-                     .collect(Collectors.toList());
+    private static Map<Object, Integer> getInstanceIndices(ITestClass testClass) {
+        Object[] instances = testClass.getInstances(true);
+        Map<Object, Integer> instanceIndices = new IdentityHashMap<>(instances.length);
+        for (int i = 0; i < instances.length; i++) {
+            Object instance = instances[i] instanceof ParameterInfo ? ((ParameterInfo) instances[i]).getInstance() : instances[i];
+            // the first index wins if the same instance is returned twice
+            instanceIndices.putIfAbsent(instance, i);
+        }
+        return instanceIndices;
     }
 
     /**
@@ -51,10 +57,13 @@ public class FactoryInstanceHolder {
      * @return factory instance index. If test method does not belong to factory instance -1 will be returned
      */
     public static int getInstanceIndex(ITestNGMethod method) {
-        if (method.getInstance() != null) {
-            String className = method.getTestClass().getName();
-            List<Object> instances = CLASS_NAME_TO_INSTANCES.getOrDefault(className, Collections.emptyList());
-            return instances.indexOf(method.getInstance());
+        Object instance = method.getInstance();
+        if (instance != null) {
+            Map<Object, Integer> instanceIndices = CLASS_NAME_TO_INSTANCE_INDICES.get(method.getTestClass().getName());
+            if (instanceIndices != null) {
+                Integer index = instanceIndices.get(instance);
+                return index != null ? index : -1;
+            }
         }
         return -1;
     }
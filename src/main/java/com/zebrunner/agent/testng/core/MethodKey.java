@@ -0,0 +1,177 @@
+package com.zebrunner.agent.testng.core;
+
+import lombok.Getter;
+import org.testng.ITestNGMethod;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identity of a test method bound to a specific factory instance.
+ * <p>
+ * A key is computed once per {@link ITestNGMethod} object and then served from a cache
+ * which holds the method objects weakly and compares them by reference.
+ */
+@Getter
+public final class MethodKey {
+
+    private static final ReferenceQueue<ITestNGMethod> COLLECTED_METHODS = new ReferenceQueue<>();
+    private static final Map<Object, MethodKey> METHOD_TO_KEY = new ConcurrentHashMap<>();
+
+    private final String className;
+    private final String methodName;
+    /**
+     * Comma separated fully-qualified names of the method parameter types
+     */
+    private final String parameterTypes;
+    private final int instanceIndex;
+    private final int hash;
+
+    private MethodKey(String className, String methodName, String parameterTypes, int instanceIndex) {
+        this.className = className;
+        this.methodName = methodName;
+        this.parameterTypes = parameterTypes;
+        this.instanceIndex = instanceIndex;
+        this.hash = 31 * (31 * (31 * className.hashCode() + methodName.hashCode()) + parameterTypes.hashCode()) + instanceIndex;
+    }
+
+    public static MethodKey of(ITestNGMethod method) {
+        MethodKey key = METHOD_TO_KEY.get(new MethodLookup(method));
+        if (key == null) {
+            key = MethodKey.create(method);
+
+            // the factory instance index is not known until the instances are registered,
+            // so the key is not cached in order to compute it again later
+            if (key.instanceIndex != -1 || method.getInstance() == null) {
+                MethodKey.expungeCollectedMethods();
+                METHOD_TO_KEY.putIfAbsent(new MethodReference(method, COLLECTED_METHODS), key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Creates key of a test method by its parts (e.g. restored from a test invocation context)
+     */
+    public static MethodKey of(String className, String methodName, List<String> parameterTypes, int instanceIndex) {
+        String joinedParameterTypes = parameterTypes != null ? String.join(",", parameterTypes) : "";
+        return new MethodKey(className, methodName, joinedParameterTypes, instanceIndex);
+    }
+
+    private static MethodKey create(ITestNGMethod method) {
+        StringBuilder parameterTypes = new StringBuilder();
+        for (Class<?> parameterType : method.getConstructorOrMethod().getParameterTypes()) {
+            if (parameterTypes.length() > 0) {
+                parameterTypes.append(',');
+            }
+            parameterTypes.append(parameterType.getName());
+        }
+
+        return new MethodKey(
+                method.getTestClass().getName(),
+                method.getConstructorOrMethod().getName(),
+                parameterTypes.toString(),
+                FactoryInstanceHolder.getInstanceIndex(method)
+        );
+    }
+
+    private static void expungeCollectedMethods() {
+        Reference<? extends ITestNGMethod> reference;
+        while ((reference = COLLECTED_METHODS.poll()) != null) {
+            METHOD_TO_KEY.remove(reference);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MethodKey)) {
+            return false;
+        }
+        MethodKey methodKey = (MethodKey) o;
+        return hash == methodKey.hash
+                && instanceIndex == methodKey.instanceIndex
+                && className.equals(methodKey.className)
+                && methodName.equals(methodKey.methodName)
+                && parameterTypes.equals(methodKey.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @return method key in the following format: "fully-qualified-class-name.method-name(argType1,argType2)[instanceNumber]"
+     */
+    @Override
+    public String toString() {
+        return className + '.' + methodName + '(' + parameterTypes + ")[" + instanceIndex + ']';
+    }
+
+    /**
+     * Weak reference to a test method which is equal to other references and lookups of the same method object
+     */
+    private static final class MethodReference extends WeakReference<ITestNGMethod> {
+
+        private final int hash;
+
+        private MethodReference(ITestNGMethod method, ReferenceQueue<ITestNGMethod> queue) {
+            super(method, queue);
+            this.hash = System.identityHashCode(method);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof MethodLookup) {
+                return ((MethodLookup) o).method == this.get();
+            }
+            return o instanceof MethodReference && this.get() != null && ((MethodReference) o).get() == this.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Strongly references a test method in order to look up its key
+     */
+    private static final class MethodLookup {
+
+        private final ITestNGMethod method;
+
+        private MethodLookup(ITestNGMethod method) {
+            this.method = method;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof MethodReference) {
+                return ((MethodReference) o).get() == method;
+            }
+            return o instanceof MethodLookup && ((MethodLookup) o).method == method;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(method);
+        }
+
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.zebrunner.agent.testng.core;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Renders stacktraces in the format of {@link Throwable#printStackTrace()}. Optionally:
+ * <ul>
+ *     <li>the number of rendered frames of every throwable and the total length of a stacktrace are limited;</li>
+ *     <li>sequences of reflection, TestNG and proxy frames are collapsed into a single line,
+ *     and frames of a cause which is equal to an already rendered throwable (same type, message and frames) are omitted.</li>
+ * </ul>
+ * Throwables are rendered by {@link Throwable#toString()} like {@link Throwable#printStackTrace()} does. If the class of
+ * the throwable overrides {@link Throwable#printStackTrace(PrintWriter)}, its own output is used instead and only the length
+ * limit is applied.
+ * <p>
+ * The last rendered stacktrace of every thread is memoized, since the same throwable is usually rendered several times
+ * in a row by the thread running the test (e.g. when a retry is decided and when the test finish is registered).
+ * The memo does not retain the throwable and is released once the test invocation is finished.
+ * Stacktraces are rendered into a buffer reused by the rendering thread. Virtual threads do not retain the buffer,
+ * since they are not reused for other tests.
+ */
+final class StacktraceRenderer {
+
+    private static final String[] FRAMEWORK_FRAME_PREFIXES = {
+            "java.lang.reflect.",
+            "jdk.internal.reflect.",
+            "sun.reflect.",
+            "org.testng.internal.",
+            "org.testng.TestRunner",
+            "org.testng.SuiteRunner",
+            "org.testng.TestNG",
+            "com.sun.proxy.",
+            "jdk.proxy"
+    };
+    private static final String[] PROXY_CLASS_MARKERS = {"$Proxy", "$$EnhancerBy", "$$ByteBuddy", "$$Lambda"};
+
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 1024 * 1024;
+
+    private static final ClassValue<Boolean> PRINT_STACK_TRACE_OVERRIDDEN = new ClassValue<Boolean>() {
+
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("printStackTrace", PrintWriter.class).getDeclaringClass() != Throwable.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+
+    };
+
+    private final int maxLength;
+    private final int maxFrames;
+    private final boolean collapseFrameworkFrames;
+
+    private final ThreadLocal<RenderedStacktrace> lastRenderedStacktrace = new ThreadLocal<>();
+    private final ThreadLocal<StringBuilder> buffer = ThreadLocal.withInitial(StringBuilder::new);
+
+    StacktraceRenderer(int maxLength, int maxFrames, boolean collapseFrameworkFrames) {
+        this.maxLength = maxLength;
+        this.maxFrames = maxFrames;
+        this.collapseFrameworkFrames = collapseFrameworkFrames;
+    }
+
+    String render(Throwable throwable) {
+        RenderedStacktrace lastRendered = lastRenderedStacktrace.get();
+        if (lastRendered != null && lastRendered.get() == throwable) {
+            return lastRendered.stacktrace;
+        }
+
+        if (PRINT_STACK_TRACE_OVERRIDDEN.get(throwable.getClass())) {
+            String stacktrace = this.printStackTrace(throwable);
+            lastRenderedStacktrace.set(new RenderedStacktrace(throwable, stacktrace));
+            return stacktrace;
+        }
+
+        boolean virtualThread = VirtualThreads.isCurrentThreadVirtual();
+        StringBuilder output = virtualThread ? new StringBuilder() : buffer.get();
+        output.setLength(0);
+
+        this.renderThrowable(throwable, output);
+        String stacktrace = output.toString();
+
+        if (!virtualThread && output.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+            buffer.remove();
+        }
+        lastRenderedStacktrace.set(new RenderedStacktrace(throwable, stacktrace));
+        return stacktrace;
+    }
+
+    /**
+     * Releases the memoized stacktrace of the current thread
+     */
+    void release() {
+        lastRenderedStacktrace.remove();
+    }
+
+    private String printStackTrace(Throwable throwable) {
+        StringWriter output = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(output));
+
+        StringBuffer stacktrace = output.getBuffer();
+        if (stacktrace.length() > maxLength) {
+            stacktrace.setLength(maxLength);
+            stacktrace.append(System.lineSeparator()).append("\t... stacktrace is truncated");
+        }
+        return stacktrace.toString();
+    }
+
+    private void renderThrowable(Throwable throwable, StringBuilder output) {
+        Set<Throwable> renderedThrowables = Collections.newSetFromMap(new IdentityHashMap<>());
+        renderedThrowables.add(throwable);
+
+        output.append(throwable).append(System.lineSeparator());
+        StackTraceElement[] frames = throwable.getStackTrace();
+        this.renderFrames(frames, 0, "", output);
+
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            this.renderEnclosedThrowable(suppressed, frames, "Suppressed: ", "\t", renderedThrowables, output);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            this.renderEnclosedThrowable(cause, frames, "Caused by: ", "", renderedThrowables, output);
+        }
+
+        if (output.length() > maxLength) {
+            output.setLength(maxLength);
+            output.append(System.lineSeparator()).append("\t... stacktrace is truncated");
+        }
+    }
+
+    private void renderEnclosedThrowable(Throwable throwable,
+                                         StackTraceElement[] enclosingFrames,
+                                         String caption,
+                                         String prefix,
+                                         Set<Throwable> renderedThrowables,
+                                         StringBuilder output) {
+        if (output.length() > maxLength) {
+            return;
+        }
+        if (!renderedThrowables.add(throwable)) {
+            output.append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(throwable).append(']')
+                  .append(System.lineSeparator());
+            return;
+        }
+
+        output.append(prefix).append(caption).append(throwable).append(System.lineSeparator());
+
+        StackTraceElement[] frames = throwable.getStackTrace();
+        if (collapseFrameworkFrames && this.isRepeated(throwable, renderedThrowables)) {
+            output.append(prefix).append("\t... ").append(frames.length).append(" frames of the repeated throwable are omitted")
+                  .append(System.lineSeparator());
+        } else {
+            // frames in common with the enclosing throwable are not rendered
+            int lastFrame = frames.length - 1;
+            int lastEnclosingFrame = enclosingFrames.length - 1;
+            while (lastFrame >= 0 && lastEnclosingFrame >= 0 && frames[lastFrame].equals(enclosingFrames[lastEnclosingFrame])) {
+                lastFrame--;
+                lastEnclosingFrame--;
+            }
+            int commonFramesCount = frames.length - 1 - lastFrame;
+
+            this.renderFrames(frames, commonFramesCount, prefix, output);
+            if (commonFramesCount != 0) {
+                output.append(prefix).append("\t... ").append(commonFramesCount).append(" more").append(System.lineSeparator());
+            }
+        }
+
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            this.renderEnclosedThrowable(suppressed, frames, "Suppressed: ", prefix + "\t", renderedThrowables, output);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            this.renderEnclosedThrowable(cause, frames, "Caused by: ", prefix, renderedThrowables, output);
+        }
+    }
+
+    /**
+     * @return true if there is another already rendered throwable with the same type, message and frames
+     */
+    private boolean isRepeated(Throwable throwable, Set<Throwable> renderedThrowables) {
+        for (Throwable renderedThrowable : renderedThrowables) {
+            if (renderedThrowable != throwable
+                    && renderedThrowable.getClass() == throwable.getClass()
+                    && String.valueOf(renderedThrowable.getMessage()).equals(String.valueOf(throwable.getMessage()))
+                    && Arrays.equals(renderedThrowable.getStackTrace(), throwable.getStackTrace())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void renderFrames(StackTraceElement[] frames, int commonFramesCount, String prefix, StringBuilder output) {
+        int framesCount = frames.length - commonFramesCount;
+        int renderedFramesCount = 0;
+
+        int i = 0;
+        while (i < framesCount && renderedFramesCount < maxFrames && output.length() <= maxLength) {
+            if (collapseFrameworkFrames && isFrameworkFrame(frames[i])) {
+                int sequenceEnd = i + 1;
+                while (sequenceEnd < framesCount && isFrameworkFrame(frames[sequenceEnd])) {
+                    sequenceEnd++;
+                }
+                if (sequenceEnd - i > 1) {
+                    output.append(prefix).append("\t... ").append(sequenceEnd - i).append(" reflection, TestNG and proxy frames")
+                          .append(System.lineSeparator());
+                    renderedFramesCount++;
+                    i = sequenceEnd;
+                    continue;
+                }
+            }
+
+            output.append(prefix).append("\tat ").append(frames[i]).append(System.lineSeparator());
+            renderedFramesCount++;
+            i++;
+        }
+
+        if (i < framesCount) {
+            output.append(prefix).append("\t... ").append(framesCount - i).append(" frames are truncated")
+                  .append(System.lineSeparator());
+        }
+    }
+
+    private static boolean isFrameworkFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        for (String prefix : FRAMEWORK_FRAME_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String marker : PROXY_CLASS_MARKERS) {
+            if (className.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class RenderedStacktrace extends WeakReference<Throwable> {
+
+        private final String stacktrace;
+
+        RenderedStacktrace(Throwable throwable, String stacktrace) {
+            super(throwable);
+            this.stacktrace = stacktrace;
+        }
+
+    }
+
+}
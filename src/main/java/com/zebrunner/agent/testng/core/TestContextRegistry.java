@@ -0,0 +1,147 @@
+package com.zebrunner.agent.testng.core;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zebrunner.agent.testng.core.retry.RetryAnalyzerKey;
+import com.zebrunner.agent.testng.core.retry.RetryStateStore;
+
+/**
+ * Keeps the agent state which is needed only while tests of a {@code <test>} (see {@link ITestContext}) are running:
+ * contexts of test methods (including data provider rows and Cucumber pickle indexes), retry analyzer classes,
+ * states and original retry analyzers of the retry chains in progress.
+ * <p>
+ * The state is released with {@link #release(ITestContext)} once the {@code <test>} is finished. Nothing is shared
+ * between test contexts, so the same test method running in several {@code <test>}s at the same time
+ * (e.g. with {@code parallel="tests"}) is not affected by another {@code <test>} being finished. Sizes of the released state are estimated,
+ * since the exact retained size of objects is not available at runtime.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TestContextRegistry {
+
+    private static final long MAP_ENTRY_BYTES = 48;
+    private static final long RETRY_CHAIN_BYTES = MAP_ENTRY_BYTES + 56;
+    private static final long RETRY_ANALYZER_BYTES = MAP_ENTRY_BYTES + 48;
+
+    private static final Map<ITestContext, Scope> SCOPES = new ConcurrentHashMap<>();
+    private static final AtomicLong RELEASED_ENTRIES = new AtomicLong();
+    private static final AtomicLong RELEASED_BYTES = new AtomicLong();
+
+    public static Scope get(ITestContext context) {
+        Scope scope = SCOPES.get(context);
+        if (scope == null) {
+            scope = SCOPES.computeIfAbsent(context, $ -> new Scope());
+        }
+        return scope;
+    }
+
+    /**
+     * @return scope of the test context, or null if the scope is not created yet or already released
+     */
+    public static Scope find(ITestContext context) {
+        return SCOPES.get(context);
+    }
+
+    /**
+     * Releases the state belonging to the finished test context
+     *
+     * @return number of released entries and estimated number of released bytes
+     */
+    public static Released release(ITestContext context) {
+        long entries = 0;
+        long bytes = 0;
+
+        Scope scope = SCOPES.remove(context);
+        if (scope != null) {
+            for (TestMethodContext methodContext : scope.methodContexts.values()) {
+                entries += 1 + methodContext.countRetainedRows();
+                bytes += MAP_ENTRY_BYTES + methodContext.estimateRetainedBytes();
+            }
+            int retryChainsCount = scope.retryStates.countInProgress();
+            entries += scope.retryAnalyzerClasses.size() + scope.retryAnalyzers.size() + retryChainsCount;
+            bytes += scope.retryAnalyzerClasses.size() * MAP_ENTRY_BYTES
+                    + scope.retryAnalyzers.size() * RETRY_ANALYZER_BYTES
+                    + retryChainsCount * RETRY_CHAIN_BYTES;
+        }
+
+        RELEASED_ENTRIES.addAndGet(entries);
+        RELEASED_BYTES.addAndGet(bytes);
+        return new Released(entries, bytes);
+    }
+
+    /**
+     * @return number of test contexts which state is not released yet
+     */
+    public static int countScopes() {
+        return SCOPES.size();
+    }
+
+    /**
+     * @return number of original retry analyzers of the retry chains which are not finished yet
+     */
+    public static int countRetryAnalyzers() {
+        int count = 0;
+        for (Scope scope : SCOPES.values()) {
+            count += scope.retryAnalyzers.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return number of retry chains which are in progress
+     */
+    public static int countRetryChains() {
+        int count = 0;
+        for (Scope scope : SCOPES.values()) {
+            count += scope.retryStates.countInProgress();
+        }
+        return count;
+    }
+
+    public static long getReleasedEntriesCount() {
+        return RELEASED_ENTRIES.get();
+    }
+
+    public static long getReleasedBytesCount() {
+        return RELEASED_BYTES.get();
+    }
+
+    /**
+     * State of a single test context. Test methods are identified by signature and factory instance (see {@link MethodKey})
+     */
+    @Getter
+    public static final class Scope {
+
+        private final Map<MethodKey, TestMethodContext> methodContexts = new ConcurrentHashMap<>();
+        private final Map<MethodKey, Class<? extends IRetryAnalyzer>> retryAnalyzerClasses = new ConcurrentHashMap<>();
+        /**
+         * Original retry analyzers of the retry chains in progress
+         */
+        private final Map<RetryAnalyzerKey, IRetryAnalyzer> retryAnalyzers = new ConcurrentHashMap<>();
+        private final RetryStateStore retryStates = new RetryStateStore();
+
+        private Scope() {
+        }
+
+    }
+
+    @Value
+    public static class Released {
+
+        long entriesCount;
+        /**
+         * Estimated number of released bytes
+         */
+        long bytesCount;
+
+    }
+
+}
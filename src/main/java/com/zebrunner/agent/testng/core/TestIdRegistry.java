@@ -0,0 +1,127 @@
+package com.zebrunner.agent.testng.core;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.testng.ITestNGMethod;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates ids which identify test executions in the test run registrar.
+ * <p>
+ * An id is a 64-bit number allocated from a sequence for a unique combination of the current execution
+ * (see {@link ExecutionFrame}), the test method (see {@link MethodKey}), data provider index and invocation index.
+ * The same id is returned for the combination until the id is released at the end of the test execution.
+ * Human-readable description of an id is produced only when debug logging is enabled.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TestIdRegistry {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final Map<TestIdKey, String> KEY_TO_ID = new ConcurrentHashMap<>();
+    private static final Map<String, TestIdKey> ID_TO_KEY = new ConcurrentHashMap<>();
+
+    public static String getOrAllocate(ITestNGMethod method, int dataProviderIndex, int invocationIndex) {
+        TestIdKey key = new TestIdKey(ExecutionFrame.currentExecutionId(), MethodKey.of(method), dataProviderIndex, invocationIndex);
+        String id = KEY_TO_ID.get(key);
+        if (id == null) {
+            id = KEY_TO_ID.computeIfAbsent(key, TestIdRegistry::allocate);
+            log.debug("Test id {} is allocated for {}", id, key);
+        }
+        return id;
+    }
+
+    /**
+     * Allocates id of a headless test, which is started by a configuration method before its test method is started.
+     * The id is not registered, since the headless test is taken over by the test method with its own id
+     * and there is no finish event which could release the id
+     */
+    public static String allocateHeadless() {
+        String id = Long.toString(SEQUENCE.incrementAndGet());
+        log.debug("Test id {} is allocated for a headless test", id);
+        return id;
+    }
+
+    private static String allocate(TestIdKey key) {
+        String id = Long.toString(SEQUENCE.incrementAndGet());
+        ID_TO_KEY.put(id, key);
+        return id;
+    }
+
+    /**
+     * Releases id of a finished test execution. A subsequent execution with the same parameters gets a new id
+     */
+    public static void release(String id) {
+        TestIdKey key = ID_TO_KEY.remove(id);
+        if (key != null) {
+            KEY_TO_ID.remove(key, id);
+        }
+    }
+
+    public static int countAllocatedIds() {
+        return KEY_TO_ID.size();
+    }
+
+    private static final class TestIdKey {
+
+        private final long executionId;
+        private final MethodKey methodKey;
+        private final int dataProviderIndex;
+        private final int invocationIndex;
+
+        private TestIdKey(long executionId, MethodKey methodKey, int dataProviderIndex, int invocationIndex) {
+            this.executionId = executionId;
+            this.methodKey = methodKey;
+            this.dataProviderIndex = dataProviderIndex;
+            // the first invocation is identified by both 0 (before the invocation index is incremented) and 1
+            this.invocationIndex = Math.max(invocationIndex, 1);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TestIdKey)) {
+                return false;
+            }
+            TestIdKey key = (TestIdKey) o;
+            return executionId == key.executionId
+                    && dataProviderIndex == key.dataProviderIndex
+                    && invocationIndex == key.invocationIndex
+                    && methodKey.equals(key.methodKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * methodKey.hashCode() + dataProviderIndex) + invocationIndex) + Long.hashCode(executionId);
+        }
+
+        /**
+         * @return description in the following format: "[executionId]: fully-qualified-class-name.method-name(argTypes)[dataProviderIndex] (instanceIndex) InvCount(invocationIndex)"
+         */
+        @Override
+        public String toString() {
+            StringBuilder description = new StringBuilder().append('[').append(executionId).append("]: ")
+                                                           .append(methodKey.getClassName()).append('.')
+                                                           .append(methodKey.getMethodName())
+                                                           .append('(').append(methodKey.getParameterTypes()).append(')');
+            if (dataProviderIndex != -1) {
+                description.append('[').append(dataProviderIndex).append(']');
+            }
+            if (methodKey.getInstanceIndex() != -1) {
+                description.append(" (").append(methodKey.getInstanceIndex()).append(')');
+            }
+            if (invocationIndex > 1) {
+                description.append(" InvCount(").append(invocationIndex).append(')');
+            }
+            return description.toString();
+        }
+
+    }
+
+}
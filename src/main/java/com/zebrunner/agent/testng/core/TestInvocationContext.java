@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.util.ArrayList;
@@ -21,7 +22,13 @@ public class TestInvocationContext {
     private final static Gson GSON = new Gson();
     private static final int MAX_DISPLAY_NAME_LENGTH = 255;
 
-    private final String thread = Thread.currentThread().getName();
+    /**
+     * Name of the thread which started the invocation. It is informational only and does not identify the invocation,
+     * since thread names may be reused or absent (e.g. for virtual threads)
+     */
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    private String thread = Thread.currentThread().getName();
     private String className;
     private String methodName;
     private String displayName;
@@ -34,10 +41,9 @@ public class TestInvocationContext {
 
     @Override
     public String toString() {
-        StringBuilder builderPattern = new StringBuilder("[%s]: %s.%s(%s)");
+        StringBuilder builderPattern = new StringBuilder("%s.%s(%s)");
 
         List<Object> buildParameters = new ArrayList<>();
-        buildParameters.add(Thread.currentThread().getName());
         buildParameters.add(className);
         buildParameters.add(methodName);
         buildParameters.add(String.join(", ", parameterClassNames));
@@ -1,62 +1,101 @@
 package com.zebrunner.agent.testng.core;
 
+import com.zebrunner.agent.testng.core.cucumber.CucumberPickleIndex;
+import com.zebrunner.agent.testng.core.cucumber.CucumberSupport;
+import com.zebrunner.agent.testng.core.dataprovider.DataProviderDataIndex;
+import com.zebrunner.agent.testng.core.dataprovider.DataProviderFingerprints;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 /**
  * Stores context of specific test method (not to be confused with specific test execution) belonging to specific test class instance
  */
 public class TestMethodContext {
 
-    private static final AtomicBoolean CUCUMBER = new AtomicBoolean(true);
-    private static final Map<KeyValueHolder<String, String>, List<Object>> CUCUMBER_PICKLES = new ConcurrentHashMap<>();
+    private static final long CONTEXT_BYTES = 128;
+    private static final long ROW_INDEX_BYTES = 48;
+    private static final long FINGERPRINT_BYTES = 48;
+    private static final long PICKLE_INDEX_BYTES = 96;
+    private static final long INVOCATION_COUNTER_BYTES = 64;
+
+    private final MethodKey methodKey;
     /**
-     * Represents current test method invocation. 0 means that method was not invoked yet.
+     * Number of invocations of the test method started by every thread, so invocations are indexed per thread
+     * (e.g. when {@code threadPoolSize} is set). Thread ids are never reused, so a counter is never shared by threads.
+     * The index of the current invocation is kept in {@link ExecutionFrame}
      */
-    private final ThreadLocal<AtomicInteger> currentInvocationCount
-            = ThreadLocal.withInitial(() -> new AtomicInteger(0));
+    private final Map<Long, AtomicInteger> threadIdToInvocationCount = new ConcurrentHashMap<>();
 
     @Getter
     private List<Integer> dataProviderIndicesForRerun = Collections.emptyList();
     private List<Object[]> dataProviderData = Collections.emptyList();
-    private final ThreadLocal<DataProviderData> currentDataProviderData = new ThreadLocal<>();
-    private final ThreadLocal<Integer> currentDataProviderIteratorIndex = ThreadLocal.withInitial(() -> -1);
+    private DataProviderDataIndex dataProviderDataIndex = new DataProviderDataIndex(Collections.emptyList());
+    /**
+     * Is set instead of {@link #dataProviderData} when data provider rows are streamed and not retained
+     */
+    private DataProviderFingerprints dataProviderFingerprints;
+    private volatile CucumberPickleIndex cucumberPickleIndex;
+
+    public TestMethodContext(MethodKey methodKey) {
+        this.methodKey = methodKey;
+    }
 
     public void setDataProviderIndicesForRerun(Collection<Integer> indicesForRerun) {
         dataProviderIndicesForRerun = new ArrayList<>(indicesForRerun);
         Collections.sort(dataProviderIndicesForRerun);
     }
 
+    /**
+     * @return true if data provider rows are streamed, so the total number of rows is not known
+     * until the data provider is exhausted (see {@link #getDataProviderSize()})
+     */
+    public boolean isDataProviderStreamed() {
+        return dataProviderFingerprints != null;
+    }
+
+    /**
+     * @return number of data provider rows, or number of rows streamed so far if the rows are streamed
+     */
     public int getDataProviderSize() {
-        return dataProviderData.size();
+        DataProviderFingerprints fingerprints = this.dataProviderFingerprints;
+        return fingerprints != null ? fingerprints.getRowsCount() : dataProviderData.size();
     }
 
     public void setDataProviderData(List<Object[]> dataProviderData) {
         if (dataProviderData != null) {
             this.dataProviderData = dataProviderData;
+            this.dataProviderDataIndex = new DataProviderDataIndex(dataProviderData);
+            this.dataProviderFingerprints = null;
+            this.cucumberPickleIndex = CucumberPickleIndex.of(dataProviderData);
+        }
+    }
+
+    public void setDataProviderFingerprints(DataProviderFingerprints dataProviderFingerprints) {
+        if (dataProviderFingerprints != null) {
+            this.dataProviderFingerprints = dataProviderFingerprints;
+            this.dataProviderData = Collections.emptyList();
+            this.dataProviderDataIndex = new DataProviderDataIndex(Collections.emptyList());
+            this.cucumberPickleIndex = null;
         }
     }
 
     public void setCurrentDataProviderIteratorIndex(int currentDataProviderIteratorIndex) {
-        this.currentDataProviderIteratorIndex.set(currentDataProviderIteratorIndex);
+        ExecutionFrame.bind(methodKey)
+                      .setDataProviderIteratorIndex(currentDataProviderIteratorIndex);
     }
 
     public void setCurrentDataProviderData(Object[] parameters, Integer index) {
-        this.currentDataProviderData.set(new DataProviderData(parameters, index));
+        ExecutionFrame.bind(methodKey)
+                      .setParameters(parameters, index);
     }
 
     public int getCurrentDataProviderIndex(Object[] actualTestParameters) {
@@ -75,65 +114,49 @@ public class TestMethodContext {
     }
 
     public Optional<Integer> getCucumberDataProviderData(Object[] data) {
-        if (!CUCUMBER.get()) {
+        if (!CucumberSupport.isAvailable()) {
             return Optional.empty();
         }
-        try {
-            Class<?> pickleWrapperClass = Class.forName("io.cucumber.testng.PickleWrapper");
-            Class<?> featureWrapperClass = Class.forName("io.cucumber.testng.FeatureWrapper");
-            Object dataFeatureWrapper = Arrays.stream(data)
-                                              .filter(featureWrapperClass::isInstance)
-                                              .findAny()
-                                              .orElseThrow(ClassNotFoundException::new);
-            Object dataPickleWrapper = Arrays.stream(data)
-                                             .filter(pickleWrapperClass::isInstance)
-                                             .findAny()
-                                             .orElseThrow(ClassNotFoundException::new);
-
-            String dataFeatureName = dataFeatureWrapper.toString()
-                                                       .replaceAll("^\"|\"$", "");
-            String dataPickleName = dataPickleWrapper.toString()
-                                                     .replaceAll("^\"|\"$", "");
-
-            List<Object> pickles = CUCUMBER_PICKLES.computeIfAbsent(new KeyValueHolder<>(dataFeatureName, dataPickleName), k -> {
-                List<Object> scenarioOutlinePickles = new LinkedList<>();
-                for (Object[] dataProviderDatum : dataProviderData) {
-                    Object featureWrapper = Arrays.stream(dataProviderDatum)
-                                                  .filter(featureWrapperClass::isInstance)
-                                                  .findAny()
-                                                  .orElseThrow();
-                    Object pickleWrapper = Arrays.stream(dataProviderDatum)
-                                                 .filter(pickleWrapperClass::isInstance)
-                                                 .findAny()
-                                                 .orElseThrow();
-
-                    String featureName = featureWrapper.toString()
-                                                       .replaceAll("^\"|\"$", "");
-                    String pickleName = pickleWrapper.toString()
-                                                     .replaceAll("^\"|\"$", "");
-                    if (featureName.equals(k.getKey()) && pickleName.equals(k.getValue())) {
-                        scenarioOutlinePickles.add(pickleWrapper);
-                    }
-                }
-                //todo add scenario outline detection with 1 line
-                if (scenarioOutlinePickles.size() < 2) {
-                    return List.of();
-                }
-                return scenarioOutlinePickles;
-            });
-            if (pickles.isEmpty()) {
-                return Optional.of(-1);
-            }
-            return Optional.of(pickles.indexOf(dataPickleWrapper));
-        } catch (ClassNotFoundException e) {
-            CUCUMBER.set(false);
-            return Optional.empty();
+
+        CucumberPickleIndex pickleIndex = this.cucumberPickleIndex;
+        if (pickleIndex != null) {
+            return pickleIndex.find(data);
         }
+        return CucumberSupport.isCucumberRow(data) ? Optional.of(-1) : Optional.empty();
     }
 
+    /**
+     * @return number of data provider rows or their fingerprints retained by the context
+     */
+    public int countRetainedRows() {
+        return this.getDataProviderSize();
+    }
+
+    /**
+     * @return rough estimate of the heap retained by the context (row values are not included, since they are shared with TestNG)
+     */
+    public long estimateRetainedBytes() {
+        long bytes = CONTEXT_BYTES + dataProviderIndicesForRerun.size() * 20L
+                + threadIdToInvocationCount.size() * INVOCATION_COUNTER_BYTES;
+
+        DataProviderFingerprints fingerprints = this.dataProviderFingerprints;
+        if (fingerprints != null) {
+            return bytes + fingerprints.getRowsCount() * FINGERPRINT_BYTES;
+        }
+
+        List<Object[]> rows = this.dataProviderData;
+        int rowLength = rows.isEmpty() || rows.get(0) == null ? 0 : rows.get(0).length;
+        // row array with references to the values and the entries of the row indices
+        bytes += rows.size() * (16L + 4L * rowLength + ROW_INDEX_BYTES);
+        if (cucumberPickleIndex != null) {
+            bytes += rows.size() * PICKLE_INDEX_BYTES;
+        }
+        return bytes;
+    }
 
     public Optional<Integer> getCurrentDataProviderIteratorIndex() {
-        Integer currentIndex = currentDataProviderIteratorIndex.get();
+        ExecutionFrame frame = ExecutionFrame.find(methodKey);
+        int currentIndex = frame != null ? frame.getDataProviderIteratorIndex() : -1;
 
         return currentIndex > -1 && dataProviderIndicesForRerun.size() > currentIndex
                 ? Optional.ofNullable(dataProviderIndicesForRerun.get(currentIndex))
@@ -141,73 +164,48 @@ public class TestMethodContext {
     }
 
     public Optional<Integer> getReferenceEqualDataProviderData(Object[] data) {
-        for (int i = 0; i < dataProviderData.size(); i++) {
-            if (dataProviderData.get(i) == data) {
-                return Optional.of(i);
-            }
-        }
-
-        return Optional.empty();
+        return dataProviderDataIndex.findReferenceEqual(data);
     }
 
     public Optional<Integer> getValueEqualDataProviderData(Object[] data) {
-        List<Object> dataAsList = Arrays.asList(data);
-
-        for (int i = 0; i < dataProviderData.size(); i++) {
-            List<Object> dataProviderLineAsList = Arrays.asList(dataProviderData.get(i));
-
-            if (dataProviderLineAsList.equals(dataAsList)) {
-                return Optional.of(i);
-            }
+        DataProviderFingerprints fingerprints = this.dataProviderFingerprints;
+        if (fingerprints != null) {
+            return fingerprints.findValueEqual(data);
         }
 
-        return Optional.empty();
+        return dataProviderDataIndex.findValueEqual(data);
     }
 
     public Optional<Integer> getStringSameDataProviderData(Object[] data) {
-        List<String> dataAsList = this.toStringsList(data);
-
-        for (int i = 0; i < dataProviderData.size(); i++) {
-            List<String> dataProviderLineAsList = this.toStringsList(dataProviderData.get(i));
-
-            if (dataProviderLineAsList.equals(dataAsList)) {
-                return Optional.of(i);
-            }
+        DataProviderFingerprints fingerprints = this.dataProviderFingerprints;
+        if (fingerprints != null) {
+            return fingerprints.findStringSame(data);
         }
 
-        return Optional.empty();
-    }
-
-    private List<String> toStringsList(Object[] data) {
-        return Arrays.stream(data)
-                     .map(Objects::toString)
-                     .collect(Collectors.toList());
+        return dataProviderDataIndex.findStringSame(data);
     }
 
     private Optional<Integer> getIndexOfMatchingDataProviderData(Object[] actualTestParameters) {
-        DataProviderData currentDataProviderData = this.currentDataProviderData.get();
+        ExecutionFrame frame = ExecutionFrame.find(methodKey);
 
-        if (currentDataProviderData != null && Arrays.equals(currentDataProviderData.parameters, actualTestParameters)) {
-            return Optional.ofNullable(currentDataProviderData.index);
+        if (frame != null && frame.getParameters() != null && Arrays.equals(frame.getParameters(), actualTestParameters)) {
+            return Optional.ofNullable(frame.getDataProviderIndex());
         }
 
         return Optional.empty();
     }
 
     public void incrementInvocationIndex() {
-        currentInvocationCount.get().incrementAndGet();
+        AtomicInteger threadInvocationCount = threadIdToInvocationCount.computeIfAbsent(
+                Thread.currentThread().getId(), $ -> new AtomicInteger(0)
+        );
+        ExecutionFrame.bind(methodKey)
+                      .startInvocation(threadInvocationCount.incrementAndGet());
     }
 
     public int getCurrentInvocationIndex() {
-        return currentInvocationCount.get().get();
-    }
-
-    @RequiredArgsConstructor
-    private static class DataProviderData {
-
-        private final Object[] parameters;
-        private final Integer index;
-
+        ExecutionFrame frame = ExecutionFrame.find(methodKey);
+        return frame != null ? frame.getInvocationIndex() : 0;
     }
 
 }
@@ -0,0 +1,67 @@
+package com.zebrunner.agent.testng.core;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads (Java 21+) from the code compiled for older Java versions.
+ * On runtimes without virtual threads, no thread is virtual and virtual thread factories are not available.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class VirtualThreads {
+
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    public static boolean isCurrentThreadVirtual() {
+        return isVirtual(Thread.currentThread());
+    }
+
+    /**
+     * @return factory of virtual threads with the given name, or null if the runtime does not support virtual threads
+     */
+    public static ThreadFactory newThreadFactory(String name) {
+        if (IS_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class).invoke(builder, name);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not create factory of virtual threads: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static MethodHandle findIsVirtual() {
+        try {
+            Method isVirtual = Thread.class.getMethod("isVirtual");
+            return MethodHandles.publicLookup()
+                                .unreflect(isVirtual)
+                                .asType(MethodType.methodType(boolean.class, Thread.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+}
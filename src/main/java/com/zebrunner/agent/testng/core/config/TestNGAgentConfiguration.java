@@ -0,0 +1,289 @@
+package com.zebrunner.agent.testng.core.config;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import com.zebrunner.agent.core.config.ConfigurationUtils;
+
+/**
+ * Holds configuration options specific to the TestNG agent.
+ * <p>
+ * Every option is read from a system property first and then from an environment variable
+ * which name is the upper-cased property name with dots and dashes replaced by underscores
+ * (e.g. {@code reporting.testng.async.enabled} -> {@code REPORTING_TESTNG_ASYNC_ENABLED}).
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TestNGAgentConfiguration {
+
+    private static final String ASYNC_ENABLED = "reporting.testng.async.enabled";
+    private static final String ASYNC_QUEUE_CAPACITY = "reporting.testng.async.queue-capacity";
+    private static final String ASYNC_OVERFLOW_POLICY = "reporting.testng.async.overflow-policy";
+    private static final String ASYNC_LANES = "reporting.testng.async.lanes";
+    private static final String ASYNC_THREAD_BOUND_APIS_USED = "reporting.testng.async.thread-bound-apis-used";
+    private static final String DATA_PROVIDER_STREAMING_ENABLED = "reporting.testng.data-provider.streaming-enabled";
+    private static final String COMPACT_CORRELATION_DATA_ENABLED = "reporting.testng.correlation-data.compact-enabled";
+    private static final String RERUN_PLAN_CACHE_ENABLED = "reporting.testng.rerun-plan-cache.enabled";
+    private static final String RERUN_PLAN_CACHE_DIRECTORY = "reporting.testng.rerun-plan-cache.directory";
+    private static final String STACKTRACE_MAX_LENGTH = "reporting.testng.stacktrace.max-length";
+    private static final String STACKTRACE_MAX_FRAMES = "reporting.testng.stacktrace.max-frames";
+    private static final String STACKTRACE_COLLAPSE_FRAMEWORK_FRAMES = "reporting.testng.stacktrace.collapse-framework-frames";
+    private static final String METRICS_ENABLED = "reporting.testng.metrics.enabled";
+    private static final String METRICS_DIRECTORY = "reporting.testng.metrics.directory";
+    private static final String SHARDING_TOTAL_SHARDS = "reporting.testng.sharding.total-shards";
+    private static final String SHARDING_SHARD_INDEX = "reporting.testng.sharding.shard-index";
+    private static final String SHARDING_STRATEGY = "reporting.testng.sharding.strategy";
+    private static final String SHARDING_HISTORY_FINGERPRINT = "reporting.testng.sharding.history-fingerprint";
+    private static final String DURATION_HISTORY_ENABLED = "reporting.testng.duration-history.enabled";
+    private static final String DURATION_HISTORY_FILE = "reporting.testng.duration-history.file";
+    private static final String LONGEST_FIRST_ORDERING_ENABLED = "reporting.testng.longest-first-ordering.enabled";
+
+    private static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 10_000;
+    private static final int DEFAULT_ASYNC_LANES = 64;
+
+    /**
+     * Defines what happens with a reporting event when the async reporting queue is full
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * The calling TestNG thread waits until there is a free slot in the queue
+         */
+        BLOCK,
+
+        /**
+         * The event is dropped and a warning is logged
+         */
+        DROP
+
+    }
+
+    /**
+     * Defines how test methods are weighted when they are split between shards
+     */
+    public enum ShardingStrategy {
+
+        /**
+         * Methods are weighted by their durations recorded in the duration history. Methods with unknown durations
+         * are weighted by their invocation counts. Falls back to {@link #COUNT} if the duration history file
+         * is not configured or its fingerprint differs from the configured one
+         */
+        DURATION,
+
+        /**
+         * Methods are weighted by their invocation counts
+         */
+        COUNT
+
+    }
+
+    public static boolean isAsyncReportingEnabled() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(ASYNC_ENABLED)));
+    }
+
+    public static int getAsyncQueueCapacity() {
+        return getPositiveInt(ASYNC_QUEUE_CAPACITY, DEFAULT_ASYNC_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @return max number of tests reported asynchronously at the same time. Other tests are reported synchronously
+     */
+    public static int getAsyncLanesCount() {
+        return getPositiveInt(ASYNC_LANES, DEFAULT_ASYNC_LANES);
+    }
+
+    public static OverflowPolicy getAsyncOverflowPolicy() {
+        String value = get(ASYNC_OVERFLOW_POLICY);
+        if (value != null) {
+            try {
+                return OverflowPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown value '{}' of '{}' property. Falling back to {}", value, ASYNC_OVERFLOW_POLICY, OverflowPolicy.BLOCK);
+            }
+        }
+        return OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * Tells whether tests use the reporting APIs bound to the current test of a thread,
+     * such as logs, test sessions, labels, artifacts or {@code CurrentTest}. Such APIs do not work with async reporting,
+     * so async reporting is not used unless this option is explicitly set to false. Defaults to true
+     */
+    public static boolean isThreadBoundApisUsed() {
+        return !Boolean.FALSE.equals(ConfigurationUtils.parseBoolean(get(ASYNC_THREAD_BOUND_APIS_USED)));
+    }
+
+    /**
+     * Notice: the number of streamed rows is not known while the tests are running, so data provider line numbers
+     * in names of the tests are not zero-padded (e.g. {@code [L7]} instead of {@code [L007]}).
+     * Thus, enabling streaming changes names of data-driven tests
+     */
+    public static boolean isDataProviderStreamingEnabled() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(DATA_PROVIDER_STREAMING_ENABLED)));
+    }
+
+    public static boolean isCompactCorrelationDataEnabled() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(COMPACT_CORRELATION_DATA_ENABLED)));
+    }
+
+    public static boolean isRerunPlanCacheEnabled() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(RERUN_PLAN_CACHE_ENABLED)));
+    }
+
+    /**
+     * @return directory where rerun plans are cached. Defaults to 'zebrunner' directory within the temporary directory
+     */
+    public static Path getRerunPlanCacheDirectory() {
+        String value = get(RERUN_PLAN_CACHE_DIRECTORY);
+        return value != null
+                ? Paths.get(value.trim())
+                : Paths.get(System.getProperty("java.io.tmpdir"), "zebrunner");
+    }
+
+    /**
+     * @return max number of characters of a reported stacktrace. Not limited by default
+     */
+    public static int getStacktraceMaxLength() {
+        return getPositiveInt(STACKTRACE_MAX_LENGTH, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return max number of reported frames of every throwable within a stacktrace. Not limited by default
+     */
+    public static int getStacktraceMaxFrames() {
+        return getPositiveInt(STACKTRACE_MAX_FRAMES, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return true if sequences of reflection, TestNG and proxy frames and frames of repeated throwables
+     * are collapsed in reported stacktraces. Disabled by default
+     */
+    public static boolean isStacktraceFrameworkFramesCollapsed() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(STACKTRACE_COLLAPSE_FRAMEWORK_FRAMES)));
+    }
+
+    public static boolean isMetricsEnabled() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(METRICS_ENABLED)));
+    }
+
+    /**
+     * @return directory where agent metrics are written. Defaults to 'zebrunner' directory within the temporary directory
+     */
+    public static Path getMetricsDirectory() {
+        String value = get(METRICS_DIRECTORY);
+        return value != null
+                ? Paths.get(value.trim())
+                : Paths.get(System.getProperty("java.io.tmpdir"), "zebrunner");
+    }
+
+    /**
+     * @return number of JVMs running the same suite with test methods split between them. 1 (no sharding) by default
+     */
+    public static int getTotalShards() {
+        return getPositiveInt(SHARDING_TOTAL_SHARDS, 1);
+    }
+
+    /**
+     * @return 0-based index of the shard run by this JVM, or -1 if the configured index is not within the number of shards
+     */
+    public static int getShardIndex() {
+        String value = get(SHARDING_SHARD_INDEX);
+        if (value == null) {
+            return 0;
+        }
+        int totalShards = getTotalShards();
+        try {
+            int shardIndex = Integer.parseInt(value.trim());
+            if (shardIndex >= 0 && shardIndex < totalShards) {
+                return shardIndex;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        log.warn("Value '{}' of '{}' property is not an index within {} shard(s)", value, SHARDING_SHARD_INDEX, totalShards);
+        return -1;
+    }
+
+    public static ShardingStrategy getShardingStrategy() {
+        String value = get(SHARDING_STRATEGY);
+        if (value != null) {
+            try {
+                return ShardingStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown value '{}' of '{}' property. Falling back to {}", value, SHARDING_STRATEGY, ShardingStrategy.DURATION);
+            }
+        }
+        return ShardingStrategy.DURATION;
+    }
+
+    /**
+     * @return true if durations of finished tests are recorded to the duration history file
+     */
+    public static boolean isDurationHistoryEnabled() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(DURATION_HISTORY_ENABLED)));
+    }
+
+    /**
+     * @return file with durations of tests recorded by previous runs, or null if it is not configured.
+     * There is no default location, since shards must plan from the same history (e.g. a file on a shared volume
+     * or restored from a CI cache), which a per-machine temporary directory does not provide
+     */
+    public static Path getDurationHistoryFile() {
+        String value = get(DURATION_HISTORY_FILE);
+        return value != null && !value.isBlank()
+                ? Paths.get(value.trim()).toAbsolutePath()
+                : null;
+    }
+
+    /**
+     * @return expected fingerprint of the duration history shards are planned from, or null if it is not configured.
+     * If the fingerprint of the loaded history differs, methods are split between shards by invocation counts
+     */
+    public static String getShardingHistoryFingerprint() {
+        String value = get(SHARDING_HISTORY_FINGERPRINT);
+        return value != null && !value.isBlank()
+                ? value.trim()
+                : null;
+    }
+
+    /**
+     * @return true if independent test methods of tests with {@code parallel="methods"} are started longest first
+     * according to the duration history
+     */
+    public static boolean isLongestFirstOrderingEnabled() {
+        return Boolean.TRUE.equals(ConfigurationUtils.parseBoolean(get(LONGEST_FIRST_ORDERING_ENABLED)));
+    }
+
+    static int getPositiveInt(String property, int defaultValue) {
+        String value = get(property);
+        if (value != null) {
+            try {
+                int intValue = Integer.parseInt(value.trim());
+                if (intValue > 0) {
+                    return intValue;
+                }
+            } catch (NumberFormatException e) {
+                // falling back to the default value below
+            }
+            log.warn("Value '{}' of '{}' property is not a positive integer. Falling back to {}", value, property, defaultValue);
+        }
+        return defaultValue;
+    }
+
+    static String get(String property) {
+        String value = System.getProperty(property);
+        if (value == null || value.trim().isEmpty()) {
+            String environmentVariable = property.toUpperCase(Locale.ROOT)
+                                                 .replace('.', '_')
+                                                 .replace('-', '_');
+            value = System.getenv(environmentVariable);
+        }
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+
+}
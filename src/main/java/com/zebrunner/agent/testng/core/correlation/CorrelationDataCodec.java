@@ -0,0 +1,61 @@
+package com.zebrunner.agent.testng.core.correlation;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
+
+/**
+ * Converts test invocation contexts to correlation data of tests and back.
+ * <p>
+ * Besides the legacy JSON format, there is a compact format. It is a versioned prefix followed by
+ * fields of the context in a fixed order without names:
+ * <pre>
+ * z1:className|methodName|parameterClassNames|dataProviderIndex|instanceIndex|invocationIndex|thread|displayName|parameters
+ * </pre>
+ * Lists are written as their size, ':' and elements separated by ','.
+ * The compact format is written only if it is enabled in {@link TestNGAgentConfiguration},
+ * while both formats are always accepted when the correlation data is read.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CorrelationDataCodec {
+
+    static final String COMPACT_FORMAT_PREFIX = "z1:";
+    static final char FIELD_SEPARATOR = '|';
+    static final char ELEMENT_SEPARATOR = ',';
+    static final char SIZE_SEPARATOR = ':';
+    static final char ESCAPE = '\\';
+    static final String NULL = "\\-";
+
+    public static String encode(TestInvocationContext context) {
+        return TestNGAgentConfiguration.isCompactCorrelationDataEnabled()
+                ? encodeCompact(context)
+                : context.asJsonString();
+    }
+
+    /**
+     * Encodes the context in the compact format regardless of the configuration
+     */
+    public static String encodeCompact(TestInvocationContext context) {
+        StringBuilder output = new StringBuilder(128).append(COMPACT_FORMAT_PREFIX);
+        new CorrelationDataWriter(output).writeString(context.getClassName())
+                                         .writeString(context.getMethodName())
+                                         .writeList(context.getParameterClassNames())
+                                         .writeInt(context.getDataProviderIndex())
+                                         .writeInt(context.getInstanceIndex())
+                                         .writeInt(context.getInvocationIndex())
+                                         .writeString(context.getThread())
+                                         .writeString(context.getDisplayName())
+                                         .writeList(context.getParameters());
+        return output.toString();
+    }
+
+    /**
+     * Reads correlation data of a single test. Use {@link CorrelationDataReader} to read correlation data of many tests
+     */
+    public static TestInvocationContext decode(String correlationData) {
+        return new CorrelationDataReader().read(correlationData);
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.zebrunner.agent.testng.core.correlation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zebrunner.agent.core.registrar.domain.RunContextTestSummary;
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+
+/**
+ * Reads test invocation contexts from correlation data of the tests of a run.
+ * <p>
+ * Both the compact format and the legacy JSON format are accepted.
+ * Class names, method names and parameter types of the compact format are interned into a dictionary
+ * shared by all the contexts read by the same reader, so contexts of the same test method share the same strings.
+ * <p>
+ * The class is not thread-safe.
+ */
+@Slf4j
+public final class CorrelationDataReader {
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<List<String>, List<String>> stringLists = new HashMap<>();
+
+    /**
+     * Reads invocation contexts of the tests. If several tests have the same context, the first test wins.
+     *
+     * @return invocation contexts with corresponding Zebrunner test ids
+     */
+    public Map<TestInvocationContext, Long> readAll(List<RunContextTestSummary> tests) {
+        Map<TestInvocationContext, Long> contextToTestId = new HashMap<>();
+        for (RunContextTestSummary test : tests) {
+            contextToTestId.putIfAbsent(this.read(test.getCorrelationData()), test.getId());
+        }
+        return contextToTestId;
+    }
+
+    /**
+     * @return test invocation context or null if the correlation data is absent or can not be parsed
+     */
+    public TestInvocationContext read(String correlationData) {
+        if (correlationData == null || correlationData.isEmpty()) {
+            return null;
+        }
+
+        if (correlationData.startsWith(CorrelationDataCodec.COMPACT_FORMAT_PREFIX)) {
+            try {
+                return this.readCompact(correlationData);
+            } catch (RuntimeException e) {
+                log.warn("Could not parse correlation data '{}'", correlationData, e);
+                return null;
+            }
+        }
+        return TestInvocationContext.fromJsonString(correlationData);
+    }
+
+    private TestInvocationContext readCompact(String correlationData) {
+        Cursor cursor = new Cursor(correlationData, CorrelationDataCodec.COMPACT_FORMAT_PREFIX.length());
+
+        String className = this.intern(cursor.readString());
+        String methodName = this.intern(cursor.readString());
+        List<String> parameterClassNames = this.intern(cursor.readList());
+        int dataProviderIndex = cursor.readInt();
+        int instanceIndex = cursor.readInt();
+        int invocationIndex = cursor.readInt();
+        String thread = cursor.readString();
+        String displayName = cursor.readString();
+        List<String> parameters = cursor.readList();
+
+        return TestInvocationContext.builder()
+                                    .thread(thread)
+                                    .className(className)
+                                    .methodName(methodName)
+                                    .displayName(displayName)
+                                    .parameters(parameters)
+                                    .parameterClassNames(parameterClassNames)
+                                    .dataProviderIndex(dataProviderIndex)
+                                    .instanceIndex(instanceIndex)
+                                    .invocationIndex(invocationIndex)
+                                    .build();
+    }
+
+    private String intern(String value) {
+        return value != null ? strings.computeIfAbsent(value, $ -> value) : null;
+    }
+
+    private List<String> intern(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        List<String> internedValues = new ArrayList<>(values.size());
+        for (String value : values) {
+            internedValues.add(this.intern(value));
+        }
+        return stringLists.computeIfAbsent(internedValues, Collections::unmodifiableList);
+    }
+
+    private static final class Cursor {
+
+        private final String data;
+        private int position;
+
+        private Cursor(String data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        String readString() {
+            String value = this.readToken(false);
+            this.skipFieldSeparator();
+            return value;
+        }
+
+        int readInt() {
+            int start = position;
+            while (position < data.length() && data.charAt(position) != CorrelationDataCodec.FIELD_SEPARATOR) {
+                position++;
+            }
+            int value = Integer.parseInt(data, start, position, 10);
+            this.skipFieldSeparator();
+            return value;
+        }
+
+        List<String> readList() {
+            if (this.isNullToken()) {
+                position += CorrelationDataCodec.NULL.length();
+                this.skipFieldSeparator();
+                return null;
+            }
+
+            int sizeEnd = data.indexOf(CorrelationDataCodec.SIZE_SEPARATOR, position);
+            if (sizeEnd == -1) {
+                throw new IllegalArgumentException("List size is expected at position " + position);
+            }
+            int size = Integer.parseInt(data, position, sizeEnd, 10);
+            position = sizeEnd + 1;
+
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(this.readToken(true));
+                if (i < size - 1) {
+                    this.expect(CorrelationDataCodec.ELEMENT_SEPARATOR);
+                }
+            }
+            this.skipFieldSeparator();
+            return values;
+        }
+
+        /**
+         * Reads value until an unescaped separator or the end of the data
+         */
+        private String readToken(boolean listElement) {
+            if (this.isNullToken()) {
+                position += CorrelationDataCodec.NULL.length();
+                return null;
+            }
+
+            StringBuilder value = null;
+            int start = position;
+            while (position < data.length()) {
+                char c = data.charAt(position);
+                if (c == CorrelationDataCodec.FIELD_SEPARATOR || (listElement && c == CorrelationDataCodec.ELEMENT_SEPARATOR)) {
+                    break;
+                }
+                if (c == CorrelationDataCodec.ESCAPE) {
+                    if (value == null) {
+                        value = new StringBuilder(data.length() - start);
+                        value.append(data, start, position);
+                    }
+                    position++;
+                    if (position >= data.length()) {
+                        throw new IllegalArgumentException("Unexpected end of data after escape character");
+                    }
+                    c = data.charAt(position);
+                }
+                if (value != null) {
+                    value.append(c);
+                }
+                position++;
+            }
+            return value != null ? value.toString() : data.substring(start, position);
+        }
+
+        private boolean isNullToken() {
+            return data.startsWith(CorrelationDataCodec.NULL, position);
+        }
+
+        private void expect(char c) {
+            if (position >= data.length() || data.charAt(position) != c) {
+                throw new IllegalArgumentException("'" + c + "' is expected at position " + position);
+            }
+            position++;
+        }
+
+        private void skipFieldSeparator() {
+            if (position < data.length()) {
+                this.expect(CorrelationDataCodec.FIELD_SEPARATOR);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.zebrunner.agent.testng.core.correlation;
+
+import java.util.List;
+
+/**
+ * Writes fields of the compact correlation data format one by one directly into the output buffer.
+ * <p>
+ * Fields are separated by '|' and list elements by ','. The separators and the escape character
+ * are escaped with '\'. Null values are written as "\-".
+ */
+final class CorrelationDataWriter {
+
+    private final StringBuilder output;
+    private boolean firstField = true;
+
+    CorrelationDataWriter(StringBuilder output) {
+        this.output = output;
+    }
+
+    CorrelationDataWriter writeString(String value) {
+        this.startField();
+        this.appendEscaped(value);
+        return this;
+    }
+
+    CorrelationDataWriter writeInt(int value) {
+        this.startField();
+        output.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a list as its size followed by ':' and the elements
+     */
+    CorrelationDataWriter writeList(List<String> values) {
+        this.startField();
+        if (values == null) {
+            output.append(CorrelationDataCodec.NULL);
+            return this;
+        }
+
+        output.append(values.size())
+              .append(CorrelationDataCodec.SIZE_SEPARATOR);
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                output.append(CorrelationDataCodec.ELEMENT_SEPARATOR);
+            }
+            this.appendEscaped(values.get(i));
+        }
+        return this;
+    }
+
+    private void startField() {
+        if (!firstField) {
+            output.append(CorrelationDataCodec.FIELD_SEPARATOR);
+        }
+        firstField = false;
+    }
+
+    private void appendEscaped(String value) {
+        if (value == null) {
+            output.append(CorrelationDataCodec.NULL);
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == CorrelationDataCodec.ESCAPE
+                    || c == CorrelationDataCodec.FIELD_SEPARATOR
+                    || c == CorrelationDataCodec.ELEMENT_SEPARATOR) {
+                output.append(CorrelationDataCodec.ESCAPE);
+            }
+            output.append(c);
+        }
+    }
+
+}
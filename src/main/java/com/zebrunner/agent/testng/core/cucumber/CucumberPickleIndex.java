@@ -0,0 +1,76 @@
+package com.zebrunner.agent.testng.core.cucumber;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Index of pickles (scenarios) of a cucumber data provider built in a single pass over the data provider rows.
+ * <p>
+ * Pickles of a scenario outline share the same feature and pickle names. Each pickle of such an outline
+ * is indexed by its position among the pickles with the same names.
+ */
+public final class CucumberPickleIndex {
+
+    private final Map<Map.Entry<String, String>, List<Object>> scenarioToPickles = new HashMap<>();
+    private final Map<Object, Integer> pickleToOutlineIndex = new IdentityHashMap<>();
+
+    private CucumberPickleIndex(List<Object[]> dataProviderData) {
+        for (Object[] row : dataProviderData) {
+            Object featureWrapper = CucumberSupport.findFeatureWrapper(row);
+            Object pickleWrapper = CucumberSupport.findPickleWrapper(row);
+            if (featureWrapper != null && pickleWrapper != null) {
+                Map.Entry<String, String> scenario = Map.entry(
+                        CucumberSupport.getName(featureWrapper), CucumberSupport.getName(pickleWrapper)
+                );
+                scenarioToPickles.computeIfAbsent(scenario, $ -> new ArrayList<>())
+                                 .add(pickleWrapper);
+            }
+        }
+
+        scenarioToPickles.values().forEach(pickles -> {
+            for (int i = 0; i < pickles.size(); i++) {
+                pickleToOutlineIndex.putIfAbsent(pickles.get(i), i);
+            }
+        });
+    }
+
+    /**
+     * Builds index of the data provider rows if the rows belong to a cucumber data provider
+     *
+     * @return index or null if the rows do not contain pickles
+     */
+    public static CucumberPickleIndex of(List<Object[]> dataProviderData) {
+        if (!CucumberSupport.isAvailable() || dataProviderData.isEmpty() || !CucumberSupport.isCucumberRow(dataProviderData.get(0))) {
+            return null;
+        }
+        return new CucumberPickleIndex(dataProviderData);
+    }
+
+    /**
+     * Resolves index of the pickle from the test parameters among the pickles of the same scenario outline.
+     *
+     * @return index of the pickle, -1 if the pickle does not belong to a scenario outline
+     * or empty if the parameters do not belong to a cucumber test
+     */
+    public Optional<Integer> find(Object[] data) {
+        Object pickleWrapper = CucumberSupport.findPickleWrapper(data);
+        Optional<Map.Entry<String, String>> scenario = CucumberSupport.getScenarioName(data);
+        if (pickleWrapper == null || scenario.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<Object> pickles = scenarioToPickles.get(scenario.get());
+        //todo add scenario outline detection with 1 line
+        if (pickles == null || pickles.size() < 2) {
+            return Optional.of(-1);
+        }
+
+        Integer index = pickleToOutlineIndex.get(pickleWrapper);
+        return Optional.of(index != null ? index : pickles.indexOf(pickleWrapper));
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.zebrunner.agent.testng.core.cucumber;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Recognizes parameters of tests run by Cucumber TestNG runner.
+ * <p>
+ * The Cucumber wrapper classes are resolved only once. Normalized names of features and pickles
+ * are computed once per wrapper instance, and the wrappers are held weakly.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CucumberSupport {
+
+    private static final Class<?> PICKLE_WRAPPER_CLASS = CucumberSupport.resolveClass("io.cucumber.testng.PickleWrapper");
+    private static final Class<?> FEATURE_WRAPPER_CLASS = CucumberSupport.resolveClass("io.cucumber.testng.FeatureWrapper");
+    private static final boolean AVAILABLE = PICKLE_WRAPPER_CLASS != null && FEATURE_WRAPPER_CLASS != null;
+
+    private static final Map<Object, String> WRAPPER_TO_NAME = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static Class<?> resolveClass(String className) {
+        try {
+            return Class.forName(className, false, CucumberSupport.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * @return true if the test parameters contain both feature and pickle wrappers
+     */
+    public static boolean isCucumberRow(Object[] row) {
+        return findFeatureWrapper(row) != null && findPickleWrapper(row) != null;
+    }
+
+    /**
+     * Resolves name of the feature and name of the pickle (scenario) from the test parameters.
+     *
+     * @return feature name as key and pickle name as value or empty if the parameters do not belong to a cucumber test
+     */
+    public static Optional<Map.Entry<String, String>> getScenarioName(Object[] row) {
+        Object featureWrapper = findFeatureWrapper(row);
+        if (featureWrapper == null) {
+            return Optional.empty();
+        }
+        Object pickleWrapper = findPickleWrapper(row);
+        if (pickleWrapper == null) {
+            return Optional.empty();
+        }
+        return Optional.of(Map.entry(getName(featureWrapper), getName(pickleWrapper)));
+    }
+
+    static Object findPickleWrapper(Object[] row) {
+        return find(row, PICKLE_WRAPPER_CLASS);
+    }
+
+    static Object findFeatureWrapper(Object[] row) {
+        return find(row, FEATURE_WRAPPER_CLASS);
+    }
+
+    private static Object find(Object[] row, Class<?> wrapperClass) {
+        if (!AVAILABLE || row == null) {
+            return null;
+        }
+        for (Object value : row) {
+            if (wrapperClass.isInstance(value)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return string representation of the wrapper without surrounding quotes
+     */
+    static String getName(Object wrapper) {
+        String name = WRAPPER_TO_NAME.get(wrapper);
+        if (name == null) {
+            name = unquote(String.valueOf(wrapper));
+            WRAPPER_TO_NAME.put(wrapper, name);
+        }
+        return name;
+    }
+
+    private static String unquote(String value) {
+        int start = value.startsWith("\"") ? 1 : 0;
+        int end = value.length() > start && value.endsWith("\"") ? value.length() - 1 : value.length();
+        return value.substring(start, end);
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.zebrunner.agent.testng.core.dataprovider;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Hash indexes over the loaded data provider rows used to find index of a row by test method arguments.
+ * <p>
+ * There are three indexes mirroring the row matching strategies: by reference, by values and by string
+ * representations of the values. Every index is built on first use and then reused for all lookups
+ * against the same data provider load. If several rows match, index of the first one is returned.
+ */
+public class DataProviderDataIndex {
+
+    private final List<Object[]> rows;
+
+    private volatile Map<Object[], Integer> identityIndex;
+    private volatile HashChains valueIndex;
+    private volatile HashChains stringIndex;
+
+    public DataProviderDataIndex(List<Object[]> rows) {
+        this.rows = rows;
+    }
+
+    public Optional<Integer> findReferenceEqual(Object[] data) {
+        Map<Object[], Integer> index = this.identityIndex;
+        if (index == null) {
+            index = this.buildIdentityIndex();
+        }
+        return Optional.ofNullable(index.get(data));
+    }
+
+    public Optional<Integer> findValueEqual(Object[] data) {
+        HashChains index = this.valueIndex;
+        if (index == null) {
+            index = this.buildValueIndex();
+        }
+
+        for (int i = index.first(DataProviderFingerprints.valueHash(data)); i != LongIntHashMap.NO_VALUE; i = index.next(i)) {
+            if (Arrays.equals(rows.get(i), data)) {
+                return Optional.of(i);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Integer> findStringSame(Object[] data) {
+        HashChains index = this.stringIndex;
+        if (index == null) {
+            index = this.buildStringIndex();
+        }
+
+        for (int i = index.first(DataProviderFingerprints.stringHash(data)); i != LongIntHashMap.NO_VALUE; i = index.next(i)) {
+            if (isStringSame(rows.get(i), data)) {
+                return Optional.of(i);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isStringSame(Object[] row, Object[] data) {
+        if (row == null || data == null) {
+            return row == data;
+        }
+        if (row.length != data.length) {
+            return false;
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (!Objects.toString(row[i]).equals(Objects.toString(data[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized Map<Object[], Integer> buildIdentityIndex() {
+        if (identityIndex == null) {
+            Map<Object[], Integer> index = new IdentityHashMap<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                index.putIfAbsent(rows.get(i), i);
+            }
+            identityIndex = index;
+        }
+        return identityIndex;
+    }
+
+    private synchronized HashChains buildValueIndex() {
+        if (valueIndex == null) {
+            int[] hashes = new int[rows.size()];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = DataProviderFingerprints.valueHash(rows.get(i));
+            }
+            valueIndex = new HashChains(hashes);
+        }
+        return valueIndex;
+    }
+
+    private synchronized HashChains buildStringIndex() {
+        if (stringIndex == null) {
+            int[] hashes = new int[rows.size()];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = DataProviderFingerprints.stringHash(rows.get(i));
+            }
+            stringIndex = new HashChains(hashes);
+        }
+        return stringIndex;
+    }
+
+    /**
+     * Groups row indices by hash. Rows with the same hash form a chain ordered by index.
+     * Immutable once constructed.
+     */
+    private static class HashChains {
+
+        private final LongIntHashMap hashToFirstIndex = new LongIntHashMap();
+        private final int[] nextIndex;
+
+        private HashChains(int[] hashes) {
+            this.nextIndex = new int[hashes.length];
+            Arrays.fill(nextIndex, LongIntHashMap.NO_VALUE);
+
+            LongIntHashMap hashToLastIndex = new LongIntHashMap();
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashToFirstIndex.putIfAbsent(hashes[i], i)) {
+                    hashToLastIndex.putIfAbsent(hashes[i], i);
+                } else {
+                    int lastIndex = hashToLastIndex.get(hashes[i]);
+                    nextIndex[lastIndex] = i;
+                    hashToLastIndex.put(hashes[i], i);
+                }
+            }
+        }
+
+        private int first(int hash) {
+            return hashToFirstIndex.get(hash);
+        }
+
+        private int next(int index) {
+            return nextIndex[index];
+        }
+
+    }
+
+}
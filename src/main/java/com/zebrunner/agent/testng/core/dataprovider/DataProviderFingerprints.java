@@ -0,0 +1,150 @@
+package com.zebrunner.agent.testng.core.dataprovider;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Compact fingerprints of data provider rows which are used to resolve index of a row
+ * when the rows themselves are not retained (e.g. when data provider is streamed).
+ * <p>
+ * Two 64-bit fingerprints are stored per row: fingerprint of the row values and fingerprint of string representations
+ * of the row values. They mirror the value-equal and string-same strategies of row matching. Strings, numbers and
+ * other value types contribute 64-bit hashes of their string representations to the fingerprint of the row values,
+ * other values contribute their {@link Object#hashCode()}. As only fingerprints are stored, a match can not be verified. Therefore,
+ * if several rows have the same fingerprint, the fingerprint is ambiguous and no row is resolved by it.
+ * This also applies to rows which are equal indeed.
+ */
+public class DataProviderFingerprints {
+
+    /**
+     * Marks fingerprints shared by several rows
+     */
+    private static final int AMBIGUOUS_INDEX = Integer.MAX_VALUE - 1;
+
+    /**
+     * Types which instances are equal only if they have the same string representation
+     */
+    private static final Set<Class<?>> VALUE_TYPES = Set.of(
+            String.class, Character.class, Boolean.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class
+    );
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final LongIntHashMap valueFingerprintToIndex = new LongIntHashMap();
+    private final LongIntHashMap stringFingerprintToIndex = new LongIntHashMap();
+    private int rowsCount;
+
+    /**
+     * Registers fingerprints of the data provider row
+     *
+     * @param index index of the row in the original data provider
+     * @param row   data provider row
+     */
+    public synchronized void add(int index, Object[] row) {
+        register(valueFingerprintToIndex, valueFingerprint(row), index);
+        register(stringFingerprintToIndex, stringFingerprint(row), index);
+        rowsCount = Math.max(rowsCount, index + 1);
+    }
+
+    /**
+     * @return number of the data provider rows read so far
+     */
+    public synchronized int getRowsCount() {
+        return rowsCount;
+    }
+
+    public synchronized Optional<Integer> findValueEqual(Object[] data) {
+        return toOptional(valueFingerprintToIndex.get(valueFingerprint(data)));
+    }
+
+    public synchronized Optional<Integer> findStringSame(Object[] data) {
+        return toOptional(stringFingerprintToIndex.get(stringFingerprint(data)));
+    }
+
+    private static void register(LongIntHashMap fingerprintToIndex, long fingerprint, int index) {
+        if (!fingerprintToIndex.putIfAbsent(fingerprint, index)) {
+            fingerprintToIndex.put(fingerprint, AMBIGUOUS_INDEX);
+        }
+    }
+
+    private static Optional<Integer> toOptional(int index) {
+        return index != LongIntHashMap.NO_VALUE && index != AMBIGUOUS_INDEX ? Optional.of(index) : Optional.empty();
+    }
+
+    /**
+     * 64-bit fingerprint consistent with {@link java.util.List#equals(Object)} of the row values
+     */
+    static long valueFingerprint(Object[] row) {
+        if (row == null) {
+            return 0;
+        }
+
+        long fingerprint = FNV_OFFSET_BASIS;
+        for (Object value : row) {
+            long valueHash;
+            if (value instanceof Enum || (value != null && VALUE_TYPES.contains(value.getClass()))) {
+                valueHash = hash(hash(FNV_OFFSET_BASIS, value.getClass().getName()), value.toString());
+            } else {
+                valueHash = Objects.hashCode(value);
+            }
+            fingerprint = (fingerprint ^ valueHash) * FNV_PRIME;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 64-bit fingerprint consistent with {@link java.util.List#equals(Object)} of the row values string representations
+     */
+    static long stringFingerprint(Object[] row) {
+        if (row == null) {
+            return 0;
+        }
+
+        long fingerprint = FNV_OFFSET_BASIS;
+        for (Object value : row) {
+            fingerprint = (fingerprint ^ hash(FNV_OFFSET_BASIS, Objects.toString(value))) * FNV_PRIME;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return 64-bit FNV-1a hash of the string continuing the given hash
+     */
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Hash consistent with {@link java.util.List#equals(Object)} of the row values
+     */
+    static int valueHash(Object[] row) {
+        return Arrays.hashCode(row);
+    }
+
+    /**
+     * Hash consistent with {@link java.util.List#equals(Object)} of the row values string representations
+     */
+    static int stringHash(Object[] row) {
+        if (row == null) {
+            return 0;
+        }
+
+        int hash = 1;
+        for (Object value : row) {
+            hash = 31 * hash + Objects.toString(value).hashCode();
+        }
+        return hash;
+    }
+
+}
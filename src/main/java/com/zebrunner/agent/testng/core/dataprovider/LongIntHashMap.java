@@ -0,0 +1,109 @@
+package com.zebrunner.agent.testng.core.dataprovider;
+
+/**
+ * Open addressing hash map from long keys to non-negative int values. Does not box keys and values,
+ * so it takes a few bytes per entry which makes it suitable for indexing millions of data provider rows.
+ * <p>
+ * The map is not thread-safe.
+ */
+class LongIntHashMap {
+
+    static final int NO_VALUE = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    /**
+     * Values are stored incremented by one, so that zero means an empty slot
+     */
+    private int[] values;
+    private int size;
+
+    LongIntHashMap() {
+        this.keys = new long[DEFAULT_CAPACITY];
+        this.values = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Associates the value with the key if the key is not associated with a value yet
+     *
+     * @return true if the value has been associated with the key
+     */
+    boolean putIfAbsent(long key, int value) {
+        return this.put(key, value, false);
+    }
+
+    /**
+     * Associates the value with the key replacing the previously associated value
+     */
+    void put(long key, int value) {
+        this.put(key, value, true);
+    }
+
+    private boolean put(long key, int value, boolean replace) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative");
+        }
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            this.resize();
+        }
+
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                if (replace) {
+                    values[slot] = value + 1;
+                }
+                return replace;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value + 1;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return value associated with the key or {@link #NO_VALUE} if there is no such value
+     */
+    int get(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                this.putIfAbsent(oldKeys[i], oldValues[i] - 1);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.zebrunner.agent.testng.core.method;
+
+import com.zebrunner.agent.testng.core.FactoryInstanceHolder;
+import org.testng.IMethodInstance;
+import org.testng.ITestNGMethod;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Dependency graph of test methods built once for the whole set of methods of a test.
+ * <p>
+ * Methods are int-indexed nodes. There are two kinds of dependencies which are resolved independently:
+ * <ul>
+ *     <li>direct dependencies on methods - a method depends on the methods with qualified names from its {@code dependsOnMethods};</li>
+ *     <li>dependencies on groups - a method depends on the methods belonging to groups from its {@code dependsOnGroups}.
+ *     Such dependencies go through intermediate group nodes, so a group with many members
+ *     and many dependant methods does not produce a quadratic number of edges.</li>
+ * </ul>
+ * Dependencies are only resolved within the same factory instance.
+ * Transitive closures of the nodes are memoized, so resolving dependencies of any set of methods
+ * is a union of precomputed bit sets.
+ * <p>
+ * The class is not thread-safe.
+ */
+public final class MethodDependencyGraph {
+
+    private final List<IMethodInstance> methods;
+    private final Map<IMethodInstance, Integer> methodToNode;
+    private final int[] instanceIndices;
+
+    private final Map<String, List<Integer>> nameToNodes = new HashMap<>();
+    /**
+     * Key is a group name and factory instance index
+     */
+    private final Map<GroupKey, Integer> groupToNode = new HashMap<>();
+
+    private final int[][] methodSuccessors;
+    private final int[][] groupSuccessors;
+    private final TransitiveClosure methodDependencies;
+    private final TransitiveClosure groupDependencies;
+
+    private MethodDependencyGraph(Collection<IMethodInstance> methods) {
+        this.methods = new ArrayList<>(methods);
+        this.methodToNode = new HashMap<>(this.methods.size() * 2);
+        this.instanceIndices = new int[this.methods.size()];
+
+        Map<Integer, List<Integer>> groupNodeToMembers = new HashMap<>();
+        for (int node = 0; node < this.methods.size(); node++) {
+            ITestNGMethod method = this.methods.get(node).getMethod();
+            methodToNode.putIfAbsent(this.methods.get(node), node);
+            instanceIndices[node] = FactoryInstanceHolder.getInstanceIndex(method);
+
+            nameToNodes.computeIfAbsent(method.getQualifiedName(), $ -> new ArrayList<>())
+                       .add(node);
+            for (String group : method.getGroups()) {
+                int groupNode = this.getOrCreateGroupNode(group, instanceIndices[node]);
+                groupNodeToMembers.computeIfAbsent(groupNode, $ -> new ArrayList<>())
+                                  .add(node);
+            }
+        }
+
+        this.methodSuccessors = new int[this.methods.size()][];
+        for (int node = 0; node < this.methods.size(); node++) {
+            ITestNGMethod method = this.methods.get(node).getMethod();
+            methodSuccessors[node] = this.getMethodSuccessors(method, instanceIndices[node]);
+        }
+        this.methodDependencies = new TransitiveClosure(methodSuccessors);
+
+        // group nodes are placed after method nodes
+        this.groupSuccessors = new int[this.methods.size() + groupToNode.size()][];
+        for (int node = 0; node < this.methods.size(); node++) {
+            ITestNGMethod method = this.methods.get(node).getMethod();
+            groupSuccessors[node] = this.getGroupSuccessors(method, instanceIndices[node]);
+        }
+        for (int groupNode = this.methods.size(); groupNode < groupSuccessors.length; groupNode++) {
+            groupSuccessors[groupNode] = toArray(groupNodeToMembers.getOrDefault(groupNode, Collections.emptyList()));
+        }
+        this.groupDependencies = new TransitiveClosure(groupSuccessors);
+    }
+
+    public static MethodDependencyGraph of(Collection<IMethodInstance> methods) {
+        return new MethodDependencyGraph(methods);
+    }
+
+    /**
+     * Resolves all the methods the given methods depend on, directly or transitively.
+     *
+     * @param methods methods which dependencies must be resolved
+     * @return dependencies of the methods
+     */
+    public Set<IMethodInstance> getDependencies(Collection<IMethodInstance> methods) {
+        BitSet dependencies = new BitSet(this.methods.size());
+        for (IMethodInstance method : methods) {
+            Integer node = methodToNode.get(method);
+            if (node != null) {
+                dependencies.or(methodDependencies.of(node));
+                dependencies.or(groupDependencies.of(node));
+            } else {
+                // the method does not belong to the graph, so only its own dependencies are resolved
+                this.addDependenciesOfForeignMethod(method.getMethod(), dependencies);
+            }
+        }
+
+        Set<IMethodInstance> dependantMethods = new HashSet<>();
+        for (int node = dependencies.nextSetBit(0); node >= 0 && node < this.methods.size(); node = dependencies.nextSetBit(node + 1)) {
+            dependantMethods.add(this.methods.get(node));
+        }
+        return dependantMethods;
+    }
+
+    /**
+     * Splits the methods into groups which do not depend on each other: methods of a group are connected
+     * by dependencies on methods or groups (in either direction), and there are no dependencies between methods of different groups.
+     *
+     * @return groups of methods. Groups and methods within them are in the order of the methods the graph is built of
+     */
+    public List<List<IMethodInstance>> getIndependentGroups() {
+        int[] parents = new int[groupSuccessors.length];
+        for (int node = 0; node < parents.length; node++) {
+            parents[node] = node;
+        }
+        boolean[] dependedUponGroups = new boolean[groupSuccessors.length];
+        for (int node = 0; node < methods.size(); node++) {
+            for (int successor : methodSuccessors[node]) {
+                union(parents, node, successor);
+            }
+            for (int groupNode : groupSuccessors[node]) {
+                union(parents, node, groupNode);
+                dependedUponGroups[groupNode] = true;
+            }
+        }
+        // members of a group are connected only if some method depends on the group
+        for (int groupNode = methods.size(); groupNode < groupSuccessors.length; groupNode++) {
+            if (dependedUponGroups[groupNode]) {
+                for (int member : groupSuccessors[groupNode]) {
+                    union(parents, groupNode, member);
+                }
+            }
+        }
+
+        Map<Integer, List<IMethodInstance>> rootToGroup = new LinkedHashMap<>();
+        for (int node = 0; node < methods.size(); node++) {
+            rootToGroup.computeIfAbsent(find(parents, node), $ -> new ArrayList<>())
+                       .add(methods.get(node));
+        }
+        return new ArrayList<>(rootToGroup.values());
+    }
+
+    private static int find(int[] parents, int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    private static void union(int[] parents, int firstNode, int secondNode) {
+        int firstRoot = find(parents, firstNode);
+        int secondRoot = find(parents, secondNode);
+        // the smaller root wins, so the result does not depend on the order of the edges
+        if (firstRoot < secondRoot) {
+            parents[secondRoot] = firstRoot;
+        } else if (secondRoot < firstRoot) {
+            parents[firstRoot] = secondRoot;
+        }
+    }
+
+    private void addDependenciesOfForeignMethod(ITestNGMethod method, BitSet dependencies) {
+        int instanceIndex = FactoryInstanceHolder.getInstanceIndex(method);
+        for (int successor : this.getMethodSuccessors(method, instanceIndex)) {
+            dependencies.set(successor);
+            dependencies.or(methodDependencies.of(successor));
+        }
+        for (int successor : this.getGroupSuccessors(method, instanceIndex)) {
+            dependencies.or(groupDependencies.of(successor));
+        }
+    }
+
+    private int[] getMethodSuccessors(ITestNGMethod method, int instanceIndex) {
+        List<Integer> successors = new ArrayList<>();
+        for (String methodName : method.getMethodsDependedUpon()) {
+            for (int dependency : nameToNodes.getOrDefault(methodName, Collections.emptyList())) {
+                if (instanceIndices[dependency] == instanceIndex) {
+                    successors.add(dependency);
+                }
+            }
+        }
+        return toArray(successors);
+    }
+
+    private int[] getGroupSuccessors(ITestNGMethod method, int instanceIndex) {
+        List<Integer> successors = new ArrayList<>();
+        for (String group : method.getGroupsDependedUpon()) {
+            Integer groupNode = groupToNode.get(new GroupKey(group, instanceIndex));
+            if (groupNode != null) {
+                successors.add(groupNode);
+            }
+        }
+        return toArray(successors);
+    }
+
+    private int getOrCreateGroupNode(String group, int instanceIndex) {
+        return groupToNode.computeIfAbsent(new GroupKey(group, instanceIndex), $ -> methods.size() + groupToNode.size());
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static final class GroupKey {
+
+        private final String group;
+        private final int instanceIndex;
+
+        private GroupKey(String group, int instanceIndex) {
+            this.group = group;
+            this.instanceIndex = instanceIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey groupKey = (GroupKey) o;
+            return instanceIndex == groupKey.instanceIndex && group.equals(groupKey.group);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, instanceIndex);
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.zebrunner.agent.testng.core.method;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Memoized transitive closure of a directed graph with int-indexed nodes.
+ * <p>
+ * Closure of a node is computed on first request together with closures of all the nodes reachable from it.
+ * Strongly connected components are collapsed with Tarjan's algorithm, so all nodes of a cycle share
+ * the same closure, and every node is visited only once regardless of how many times it is requested.
+ * The algorithm is iterative, so long dependency chains do not overflow the stack.
+ * <p>
+ * The class is not thread-safe.
+ */
+final class TransitiveClosure {
+
+    private static final BitSet EMPTY = new BitSet(0);
+
+    private final int[][] successors;
+    /**
+     * Memoized closures. A closure must not be modified, since it can be shared between nodes
+     */
+    private final BitSet[] closures;
+
+    // Tarjan's algorithm state
+    private final int[] index;
+    private final int[] lowLink;
+    private final boolean[] onStack;
+    private final int[] stack;
+    private int stackSize;
+    private int counter;
+
+    TransitiveClosure(int[][] successors) {
+        int nodesCount = successors.length;
+        this.successors = successors;
+        this.closures = new BitSet[nodesCount];
+        this.index = new int[nodesCount];
+        this.lowLink = new int[nodesCount];
+        this.onStack = new boolean[nodesCount];
+        this.stack = new int[nodesCount];
+        Arrays.fill(index, -1);
+    }
+
+    /**
+     * @return nodes reachable from the given node. The node itself is included only if it belongs to a cycle.
+     * The returned set must not be modified
+     */
+    BitSet of(int node) {
+        if (closures[node] == null) {
+            this.compute(node);
+        }
+        return closures[node];
+    }
+
+    private void compute(int root) {
+        int[] callNodes = new int[successors.length];
+        int[] callPositions = new int[successors.length];
+        int callDepth = 0;
+
+        this.visit(root);
+        callNodes[callDepth] = root;
+        callPositions[callDepth++] = 0;
+
+        while (callDepth > 0) {
+            int top = callDepth - 1;
+            int node = callNodes[top];
+            int[] nodeSuccessors = successors[node];
+
+            if (callPositions[top] < nodeSuccessors.length) {
+                int successor = nodeSuccessors[callPositions[top]++];
+                if (closures[successor] != null) {
+                    // the successor belongs to already completed component
+                    continue;
+                }
+                if (index[successor] == -1) {
+                    this.visit(successor);
+                    callNodes[callDepth] = successor;
+                    callPositions[callDepth++] = 0;
+                } else if (onStack[successor]) {
+                    lowLink[node] = Math.min(lowLink[node], index[successor]);
+                }
+            } else {
+                callDepth--;
+                if (callDepth > 0) {
+                    int parent = callNodes[callDepth - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+                if (lowLink[node] == index[node]) {
+                    this.completeComponent(node);
+                }
+            }
+        }
+    }
+
+    private void visit(int node) {
+        index[node] = counter;
+        lowLink[node] = counter;
+        counter++;
+        stack[stackSize++] = node;
+        onStack[node] = true;
+    }
+
+    /**
+     * Pops the strongly connected component rooted at the given node and computes its closure.
+     * Closures of all the components reachable from this one are already computed at this point.
+     */
+    private void completeComponent(int componentRoot) {
+        int componentStart = stackSize;
+        do {
+            componentStart--;
+        } while (stack[componentStart] != componentRoot);
+
+        BitSet closure = null;
+        for (int i = componentStart; i < stackSize; i++) {
+            for (int successor : successors[stack[i]]) {
+                if (closure == null) {
+                    closure = new BitSet();
+                }
+                closure.set(successor);
+                // successors which are still on the stack belong to this component
+                if (!onStack[successor]) {
+                    closure.or(closures[successor]);
+                }
+            }
+        }
+        if (closure == null) {
+            closure = EMPTY;
+        }
+
+        for (int i = componentStart; i < stackSize; i++) {
+            onStack[stack[i]] = false;
+            closures[stack[i]] = closure;
+        }
+        stackSize = componentStart;
+    }
+
+}
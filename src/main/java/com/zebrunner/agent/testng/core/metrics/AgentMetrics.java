@@ -0,0 +1,181 @@
+package com.zebrunner.agent.testng.core.metrics;
+
+import com.google.gson.GsonBuilder;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.zebrunner.agent.testng.core.TestContextRegistry;
+import com.zebrunner.agent.testng.core.TestIdRegistry;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
+import com.zebrunner.agent.testng.listener.RunContextService;
+
+/**
+ * Measures the time the agent adds to the test run.
+ * <p>
+ * Metrics are collected only if they are enabled in {@link TestNGAgentConfiguration}. In such case,
+ * latencies of the instrumented agent callbacks and sizes of the agent internal registries are exposed
+ * via the {@value #OBJECT_NAME} MBean and written to a JSON file when the test run is finished.
+ * <p>
+ * Usage:
+ * <pre>
+ * long startedAt = AgentMetrics.start();
+ * ...
+ * AgentMetrics.record("TestRunListener.onTestStart", startedAt);
+ * </pre>
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AgentMetrics {
+
+    private static final String OBJECT_NAME = "com.zebrunner.agent.testng:type=AgentMetrics";
+    private static final boolean ENABLED = TestNGAgentConfiguration.isMetricsEnabled();
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new LinkedHashMap<>();
+
+    static {
+        GAUGES.put("invocation-contexts", RunContextService::countInvocationContexts);
+        GAUGES.put("test-ids", TestIdRegistry::countAllocatedIds);
+        GAUGES.put("retry-analyzers", TestContextRegistry::countRetryAnalyzers);
+        GAUGES.put("retry-chains", TestContextRegistry::countRetryChains);
+        GAUGES.put("test-context-scopes", TestContextRegistry::countScopes);
+        GAUGES.put("released-test-context-entries", TestContextRegistry::getReleasedEntriesCount);
+        GAUGES.put("released-test-context-bytes", TestContextRegistry::getReleasedBytesCount);
+
+        if (ENABLED) {
+            AgentMetrics.registerMBean();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return start time of a measured callback or 0 if metrics are disabled
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the latency of a callback started at the given time
+     *
+     * @param name      name of the callback
+     * @param startedAt value returned by {@link #start()} when the callback was started
+     */
+    public static void record(String name, long startedAt) {
+        if (ENABLED) {
+            long latency = System.nanoTime() - startedAt;
+
+            LatencyHistogram histogram = HISTOGRAMS.get(name);
+            if (histogram == null) {
+                histogram = HISTOGRAMS.computeIfAbsent(name, $ -> new LatencyHistogram());
+            }
+            histogram.record(latency);
+        }
+    }
+
+    /**
+     * Writes the summary of the collected metrics to the metrics directory if metrics are enabled
+     */
+    public static void writeSummary() {
+        if (ENABLED) {
+            Path file = TestNGAgentConfiguration.getMetricsDirectory()
+                                                .resolve("agent-metrics-" + ProcessHandle.current().pid() + ".json");
+            try {
+                Files.createDirectories(file.getParent());
+                Files.write(file, AgentMetrics.getSummary().getBytes(StandardCharsets.UTF_8));
+                log.info("Zebrunner agent metrics are written to {}", file);
+            } catch (IOException e) {
+                log.warn("Could not write Zebrunner agent metrics to {}", file, e);
+            }
+        }
+    }
+
+    static String getSummary() {
+        Map<String, Object> histograms = new TreeMap<>();
+        HISTOGRAMS.forEach((name, histogram) -> {
+            long count = histogram.getCount();
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", count);
+            summary.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(histogram.getTotalNanos()));
+            summary.put("meanMicros", count != 0 ? TimeUnit.NANOSECONDS.toMicros(histogram.getTotalNanos() / count) : 0);
+            summary.put("p50Micros", TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(50)));
+            summary.put("p90Micros", TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(90)));
+            summary.put("p99Micros", TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(99)));
+            summary.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(histogram.getMaxNanos()));
+            histograms.put(name, summary);
+        });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("latencies", histograms);
+        summary.put("gauges", AgentMetrics.getGauges());
+        return new GsonBuilder().setPrettyPrinting()
+                                .create()
+                                .toJson(summary);
+    }
+
+    static Map<String, Long> getGauges() {
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        GAUGES.forEach((name, gauge) -> gauges.put(name, gauge.getAsLong()));
+        return gauges;
+    }
+
+    private static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(new AgentMetricsMBeanImpl(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            log.debug("Zebrunner agent metrics MBean is already registered");
+        } catch (JMException e) {
+            log.warn("Could not register Zebrunner agent metrics MBean", e);
+        }
+    }
+
+    private static class AgentMetricsMBeanImpl implements AgentMetricsMXBean {
+
+        @Override
+        public String getSummary() {
+            return AgentMetrics.getSummary();
+        }
+
+        @Override
+        public Map<String, Long> getInvocationCounts() {
+            Map<String, Long> invocationCounts = new TreeMap<>();
+            HISTOGRAMS.forEach((name, histogram) -> invocationCounts.put(name, histogram.getCount()));
+            return invocationCounts;
+        }
+
+        @Override
+        public Map<String, Long> getTotalMillis() {
+            Map<String, Long> totalMillis = new TreeMap<>();
+            HISTOGRAMS.forEach((name, histogram) -> totalMillis.put(name, TimeUnit.NANOSECONDS.toMillis(histogram.getTotalNanos())));
+            return totalMillis;
+        }
+
+        @Override
+        public Map<String, Long> getGauges() {
+            return AgentMetrics.getGauges();
+        }
+
+    }
+
+}
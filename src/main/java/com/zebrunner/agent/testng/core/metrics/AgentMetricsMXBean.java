@@ -0,0 +1,30 @@
+package com.zebrunner.agent.testng.core.metrics;
+
+import java.util.Map;
+
+/**
+ * Exposes overhead metrics of the agent via JMX
+ */
+public interface AgentMetricsMXBean {
+
+    /**
+     * @return latency histograms and gauges in JSON format
+     */
+    String getSummary();
+
+    /**
+     * @return number of invocations of every instrumented agent callback
+     */
+    Map<String, Long> getInvocationCounts();
+
+    /**
+     * @return total time in milliseconds spent in every instrumented agent callback
+     */
+    Map<String, Long> getTotalMillis();
+
+    /**
+     * @return current sizes of the agent internal registries
+     */
+    Map<String, Long> getGauges();
+
+}
@@ -0,0 +1,89 @@
+package com.zebrunner.agent.testng.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Values are recorded into log-linear buckets: every power of two range is split into {@link #SUB_BUCKETS_COUNT}
+ * linear sub-buckets, so a percentile is reported with a relative error under 1/{@link #SUB_BUCKETS_COUNT}.
+ * Recording is a few atomic increments and does not allocate.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        total.add(value);
+
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile percentile in range (0, 100]
+     * @return the highest value of the bucket containing the given percentile (but not greater than the max recorded value)
+     */
+    public long getValueAtPercentile(double percentile) {
+        long totalCount = this.getCount();
+        if (totalCount == 0) {
+            return 0;
+        }
+        long targetCount = Math.max((long) Math.ceil(totalCount * percentile / 100), 1);
+
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            cumulativeCount += buckets.get(i);
+            if (cumulativeCount >= targetCount) {
+                long highestValue = i + 1 < BUCKETS_COUNT ? lowestValue(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(highestValue, this.getMaxNanos());
+            }
+        }
+        return this.getMaxNanos();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS_COUNT + subBucket;
+    }
+
+    static long lowestValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKETS_COUNT) {
+            return bucketIndex;
+        }
+        int exponent = bucketIndex / SUB_BUCKETS_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = bucketIndex % SUB_BUCKETS_COUNT;
+        return (SUB_BUCKETS_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+}
@@ -0,0 +1,353 @@
+package com.zebrunner.agent.testng.core.registrar;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zebrunner.agent.core.registrar.TestRunRegistrar;
+import com.zebrunner.agent.core.registrar.domain.TestFinish;
+import com.zebrunner.agent.core.registrar.domain.TestRunFinish;
+import com.zebrunner.agent.core.registrar.domain.TestRunStart;
+import com.zebrunner.agent.core.registrar.domain.TestStart;
+import com.zebrunner.agent.testng.core.VirtualThreads;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration.OverflowPolicy;
+
+/**
+ * {@link TestRunRegistrar} decorator that moves test level reporting off the TestNG worker threads.
+ * <p>
+ * The Zebrunner registrar binds the current test to the thread that registered it, so the events can not be
+ * simply handed over to a shared pool. Instead, the events are delivered by a bounded pool of dispatching lanes -
+ * single-threaded executors replaying the events in the order they were produced. A lane is leased by a worker
+ * thread from the start of a test till its finish, so the lane thread is bound to a single test at a time,
+ * and the start of a test is always delivered before its finish. A worker thread leases the lane selected by
+ * its id if it is free, or any other free lane. If all the lanes are leased, the test is reported synchronously
+ * on the worker thread.
+ * <p>
+ * As the test is bound to the lane thread and not to the worker thread, the reporting APIs bound to the current
+ * test of a thread (such as logs, test sessions, labels or artifacts) do not see the test. Therefore, the registrar
+ * is used only if tests declare they do not use such APIs (see {@link TestRunRegistrarHolder}).
+ * <p>
+ * The total number of pending events across all lanes is bounded by the configured capacity.
+ * When there is no free slot for the start of a test, the start either waits or, with the
+ * {@link OverflowPolicy#DROP} policy, the test is not reported at all: its finish and after-method events
+ * are dropped as well. Events of tests which start is accepted are never dropped.
+ * Test run start and finish are registered synchronously after all pending events are flushed.
+ */
+@Slf4j
+public class AsyncTestRunRegistrar implements TestRunRegistrar {
+
+    /**
+     * Marks the tests reported synchronously on the worker thread
+     */
+    private static final Lane DIRECT = new Lane(null);
+
+    private final TestRunRegistrar delegate;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Semaphore freeSlots;
+    private final Lane[] lanes;
+
+    private final ThreadLocal<Worker> worker = ThreadLocal.withInitial(Worker::new);
+    private final Map<String, Lane> startedTestIdToLane = new ConcurrentHashMap<>();
+    private final Set<String> droppedTestIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public AsyncTestRunRegistrar(TestRunRegistrar delegate, int capacity, OverflowPolicy overflowPolicy, int lanesCount) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be a positive number");
+        }
+        if (lanesCount <= 0) {
+            throw new IllegalArgumentException("Lanes count must be a positive number");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.freeSlots = new Semaphore(capacity);
+        this.lanes = new Lane[lanesCount];
+        for (int i = 0; i < lanesCount; i++) {
+            lanes[i] = new Lane(newThreadFactory("zebrunner-reporting-" + (i + 1)));
+        }
+    }
+
+    @Override
+    public void registerStart(TestRunStart testRunStart) {
+        this.flush();
+        delegate.registerStart(testRunStart);
+    }
+
+    @Override
+    public void registerFinish(TestRunFinish testRunFinish) {
+        this.flush();
+        delegate.registerFinish(testRunFinish);
+    }
+
+    @Override
+    public void registerHeadlessTestStart(String id, TestStart testStart) {
+        this.startTest(id, () -> delegate.registerHeadlessTestStart(id, testStart));
+    }
+
+    @Override
+    public void registerTestStart(String id, TestStart testStart) {
+        this.startTest(id, () -> delegate.registerTestStart(id, testStart));
+    }
+
+    @Override
+    public boolean isTestStarted() {
+        return worker.get().currentTestId != null;
+    }
+
+    /**
+     * A test which start is dropped is considered started, so that it is not started once again on its finish
+     */
+    @Override
+    public boolean isTestStarted(String id) {
+        return startedTestIdToLane.containsKey(id) || droppedTestIds.contains(id);
+    }
+
+    @Override
+    public void registerTestFinish(String id, TestFinish testFinish) {
+        Worker worker = this.worker.get();
+        if (id.equals(worker.currentTestId)) {
+            worker.currentTestId = null;
+        }
+
+        Lane lane = startedTestIdToLane.remove(id);
+        if (lane == null && droppedTestIds.remove(id)) {
+            this.onDropped("finish of test " + id);
+            return;
+        }
+
+        this.deliver(lane != null ? lane : worker.getLane(), () -> delegate.registerTestFinish(id, testFinish));
+        if (lane != null && lane == worker.leasedLane) {
+            worker.leasedLane = null;
+            lane.leased.set(false);
+        }
+    }
+
+    @Override
+    public void registerAfterTestStart() {
+        Worker worker = this.worker.get();
+        if (worker.lastTestDropped) {
+            this.onDropped("after-method start");
+        } else {
+            this.deliver(worker.getLane(), delegate::registerAfterTestStart);
+        }
+    }
+
+    @Override
+    public void registerAfterTestFinish() {
+        Worker worker = this.worker.get();
+        if (worker.lastTestDropped) {
+            this.onDropped("after-method finish");
+        } else {
+            this.deliver(worker.getLane(), delegate::registerAfterTestFinish);
+        }
+    }
+
+    /**
+     * The check relies on the test bound to the lane thread, so it is performed on the lane
+     * after all previously dispatched events of the current test. The calling thread waits for the result.
+     */
+    @Override
+    public boolean isKnownIssueAttachedToTest(String failureStacktrace) {
+        Worker worker = this.worker.get();
+        if (worker.lastTestDropped) {
+            return false;
+        }
+        Lane lane = worker.getLane();
+        if (lane == DIRECT) {
+            return delegate.isKnownIssueAttachedToTest(failureStacktrace);
+        }
+
+        CompletableFuture<Boolean> verdict = new CompletableFuture<>();
+        this.deliver(lane, () -> {
+            try {
+                verdict.complete(delegate.isKnownIssueAttachedToTest(failureStacktrace));
+            } finally {
+                verdict.complete(false);
+            }
+        });
+        try {
+            return verdict.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void clearConfigurationLogs() {
+        this.deliver(this.worker.get().getLane(), delegate::clearConfigurationLogs);
+    }
+
+    /**
+     * Blocks until all the events dispatched so far are delivered to the underlying registrar
+     */
+    public void flush() {
+        freeSlots.acquireUninterruptibly(capacity);
+        freeSlots.release(capacity);
+    }
+
+    public long getDroppedEventsCount() {
+        return droppedEvents.get();
+    }
+
+    public int getPendingEventsCount() {
+        return capacity - freeSlots.availablePermits();
+    }
+
+    private void startTest(String id, Runnable start) {
+        Worker worker = this.worker.get();
+        worker.currentTestId = id;
+        worker.lastTestDropped = false;
+
+        // the worker keeps its lane, if a headless test is followed by the test itself
+        if (worker.leasedLane == null) {
+            worker.leasedLane = this.leaseLane();
+            worker.lastLane = worker.leasedLane != null ? worker.leasedLane : DIRECT;
+        }
+        Lane lane = worker.getLane();
+
+        if (lane == DIRECT) {
+            startedTestIdToLane.put(id, DIRECT);
+            start.run();
+        } else if (this.acquireSlot(true)) {
+            startedTestIdToLane.put(id, lane);
+            this.execute(lane, start);
+        } else {
+            worker.lastTestDropped = true;
+            droppedTestIds.add(id);
+            this.onDropped("start of test " + id);
+        }
+    }
+
+    /**
+     * @return a free lane, preferably the one selected by the id of the current thread, or null if all the lanes are leased
+     */
+    private Lane leaseLane() {
+        int home = (int) Math.floorMod(Thread.currentThread().getId(), (long) lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            Lane lane = lanes[(home + i) % lanes.length];
+            if (lane.leased.compareAndSet(false, true)) {
+                return lane;
+            }
+        }
+        log.debug("All {} reporting lanes are leased. The test is reported synchronously", lanes.length);
+        return null;
+    }
+
+    /**
+     * Delivers an event of the test which start is accepted, so the event is never dropped
+     */
+    private void deliver(Lane lane, Runnable event) {
+        if (lane == DIRECT) {
+            event.run();
+        } else {
+            this.acquireSlot(false);
+            this.execute(lane, event);
+        }
+    }
+
+    private void execute(Lane lane, Runnable event) {
+        try {
+            lane.executor.execute(() -> {
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    log.error("Could not deliver reporting event: {}", e.getMessage(), e);
+                } finally {
+                    freeSlots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            freeSlots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @param droppable whether the slot is not awaited with the {@link OverflowPolicy#DROP} policy
+     * @return false if there is no free slot and the event should be dropped
+     */
+    private boolean acquireSlot(boolean droppable) {
+        if (droppable && overflowPolicy == OverflowPolicy.DROP) {
+            return freeSlots.tryAcquire();
+        }
+        freeSlots.acquireUninterruptibly();
+        return true;
+    }
+
+    private void onDropped(String event) {
+        long dropped = droppedEvents.incrementAndGet();
+        log.warn("Reporting queue is full (capacity {}). The {} is dropped, {} event(s) dropped so far", capacity, event, dropped);
+    }
+
+    private static ThreadFactory newThreadFactory(String name) {
+        ThreadFactory threadFactory = VirtualThreads.newThreadFactory(name);
+        if (threadFactory == null) {
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        return threadFactory;
+    }
+
+    private static class Lane {
+
+        private final ExecutorService executor;
+        private final AtomicBoolean leased = new AtomicBoolean();
+
+        private Lane(ThreadFactory threadFactory) {
+            // the queue is not bounded here, because the number of pending events is bounded by the registrar
+            this.executor = threadFactory != null ? Executors.newSingleThreadExecutor(threadFactory) : null;
+        }
+
+    }
+
+    /**
+     * Reporting state of a worker thread. Accessed only by that thread.
+     */
+    private static class Worker {
+
+        /**
+         * Id of the test currently running on the worker thread
+         */
+        private String currentTestId;
+
+        /**
+         * Whether the start of the last test of the worker thread is dropped
+         */
+        private boolean lastTestDropped;
+
+        /**
+         * Lane leased by the worker thread for its current test
+         */
+        private Lane leasedLane;
+
+        /**
+         * Lane of the last test of the worker thread, where the events following the test finish are delivered.
+         * {@link #DIRECT} if the last test is reported synchronously or there were no tests yet
+         */
+        private Lane lastLane = DIRECT;
+
+        private Lane getLane() {
+            return leasedLane != null ? leasedLane : lastLane;
+        }
+
+    }
+
+}
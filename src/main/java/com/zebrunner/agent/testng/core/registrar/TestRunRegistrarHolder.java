@@ -0,0 +1,61 @@
+package com.zebrunner.agent.testng.core.registrar;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import com.zebrunner.agent.core.registrar.TestRunRegistrar;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
+
+/**
+ * Provides the registrar shared by all the components of the agent.
+ * If async reporting is enabled and tests declare they do not use thread-bound reporting APIs,
+ * the Zebrunner registrar is wrapped into {@link AsyncTestRunRegistrar}.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TestRunRegistrarHolder {
+
+    private static volatile TestRunRegistrar registrar;
+
+    public static TestRunRegistrar get() {
+        if (registrar == null) {
+            synchronized (TestRunRegistrarHolder.class) {
+                if (registrar == null) {
+                    registrar = create();
+                }
+            }
+        }
+        return registrar;
+    }
+
+    /**
+     * Replaces the shared registrar, e.g. with a stand-in registrar in benchmarks and stress tests.
+     * Should be invoked before the agent components are created.
+     */
+    public static void set(TestRunRegistrar registrar) {
+        if (registrar != null) {
+            TestRunRegistrarHolder.registrar = registrar;
+        }
+    }
+
+    private static TestRunRegistrar create() {
+        TestRunRegistrar registrar = TestRunRegistrar.getInstance();
+        if (TestNGAgentConfiguration.isAsyncReportingEnabled()) {
+            if (TestNGAgentConfiguration.isThreadBoundApisUsed()) {
+                log.warn("Async reporting is enabled, but tests may use thread-bound reporting APIs (logs, labels, etc.). "
+                         + "Test events are reported synchronously");
+                return registrar;
+            }
+            log.debug("TestRunRegistrarHolder -> async reporting is enabled");
+            return new AsyncTestRunRegistrar(
+                    registrar,
+                    TestNGAgentConfiguration.getAsyncQueueCapacity(),
+                    TestNGAgentConfiguration.getAsyncOverflowPolicy(),
+                    TestNGAgentConfiguration.getAsyncLanesCount()
+            );
+        }
+        return registrar;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.zebrunner.agent.testng.core.rerun;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.zebrunner.agent.core.config.ConfigurationHolder;
+import com.zebrunner.agent.core.registrar.RunContextService;
+import com.zebrunner.agent.core.registrar.domain.RunContextTestSummary;
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
+import com.zebrunner.agent.testng.core.correlation.CorrelationDataReader;
+
+/**
+ * Provides invocation contexts of all the tests of the full execution plan of a rerun.
+ * <p>
+ * If the cache is enabled in {@link TestNGAgentConfiguration}, the decoded plan is persisted to a file keyed by the run context
+ * and a digest of the test summaries retrieved from Zebrunner, so other JVM forks of the same run read the file
+ * instead of decoding the plan again. Once the plan on Zebrunner changes, e.g. on a subsequent rerun of the same run context,
+ * the digest changes as well and the stale file is not used.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RerunPlanCache {
+
+    /**
+     * Loads the full execution plan from the cache file if it is enabled and matches the plan on Zebrunner,
+     * otherwise decodes the plan retrieved from Zebrunner.
+     *
+     * @return invocation contexts of the tests of the full execution plan with corresponding Zebrunner test ids
+     */
+    public static Map<TestInvocationContext, Long> loadFullExecutionPlan() {
+        List<RunContextTestSummary> tests = RunContextService.retrieveFullExecutionPlanTests();
+        Path cacheFile = TestNGAgentConfiguration.isRerunPlanCacheEnabled() ? RerunPlanCache.getCacheFile(tests) : null;
+
+        if (cacheFile != null && Files.isRegularFile(cacheFile)) {
+            try {
+                Map<TestInvocationContext, Long> plan = RerunPlanFile.read(cacheFile);
+                log.debug("Full execution plan with {} tests is read from {}", plan.size(), cacheFile);
+                return plan;
+            } catch (IOException e) {
+                log.warn("Could not read cached full execution plan from {}", cacheFile, e);
+            }
+        }
+
+        Map<TestInvocationContext, Long> plan = new CorrelationDataReader().readAll(tests);
+
+        if (cacheFile != null && !plan.isEmpty()) {
+            try {
+                RerunPlanFile.write(cacheFile, plan);
+                log.debug("Full execution plan with {} tests is cached to {}", plan.size(), cacheFile);
+            } catch (IOException e) {
+                log.warn("Could not cache full execution plan to {}", cacheFile, e);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return cache file of the given plan of the current run or null if the run context is not provided
+     */
+    static Path getCacheFile(List<RunContextTestSummary> tests) {
+        String runContext = ConfigurationHolder.getRunContext();
+        if (runContext == null || runContext.isEmpty()) {
+            return null;
+        }
+        return TestNGAgentConfiguration.getRerunPlanCacheDirectory()
+                                       .resolve("rerun-plan-" + sha256(runContext) + "-" + sha256(RerunPlanCache.describe(tests)) + ".bin");
+    }
+
+    /**
+     * @return text uniquely describing ids and correlation data of the given tests, independent of their order
+     */
+    static String describe(List<RunContextTestSummary> tests) {
+        List<String> lines = new ArrayList<>(tests.size());
+        for (RunContextTestSummary test : tests) {
+            lines.add(test.getId() + ":" + test.getCorrelationData());
+        }
+        Collections.sort(lines);
+        return tests.size() + "\n" + String.join("\n", lines);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                   .append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
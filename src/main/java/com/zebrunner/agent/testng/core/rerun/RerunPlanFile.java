@@ -0,0 +1,105 @@
+package com.zebrunner.agent.testng.core.rerun;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+import com.zebrunner.agent.testng.core.correlation.CorrelationDataCodec;
+import com.zebrunner.agent.testng.core.correlation.CorrelationDataReader;
+
+/**
+ * Binary file with invocation contexts of tests of a rerun plan.
+ * <p>
+ * The file starts with a magic number, format version and number of records.
+ * Every record is a Zebrunner test id followed by length and UTF-8 bytes of the invocation context
+ * in the compact correlation data format. The file is read through a memory-mapped buffer.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class RerunPlanFile {
+
+    private static final int MAGIC = 0x5A525043; // ZRPC
+    private static final int VERSION = 1;
+
+    static Map<TestInvocationContext, Long> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported format of rerun plan file " + path);
+            }
+
+            int recordsCount = buffer.getInt();
+            CorrelationDataReader reader = new CorrelationDataReader();
+            Map<TestInvocationContext, Long> contextToTestId = new HashMap<>(recordsCount * 2);
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < recordsCount; i++) {
+                long testId = buffer.getLong();
+                int length = buffer.getInt();
+                if (bytes.length < length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                buffer.get(bytes, 0, length);
+
+                TestInvocationContext context = reader.read(new String(bytes, 0, length, StandardCharsets.UTF_8));
+                if (context != null) {
+                    contextToTestId.putIfAbsent(context, testId);
+                }
+            }
+            return contextToTestId;
+        } catch (RuntimeException e) {
+            throw new IOException("Could not read rerun plan file " + path, e);
+        }
+    }
+
+    /**
+     * Writes the contexts to a temporary file and atomically moves it to the given path,
+     * so concurrent readers never see a partially written file
+     */
+    static void write(Path path, Map<TestInvocationContext, Long> contextToTestId) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temporaryFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+
+                long recordsCount = contextToTestId.entrySet()
+                                                   .stream()
+                                                   .filter(entry -> entry.getKey() != null && entry.getValue() != null)
+                                                   .count();
+                output.writeInt((int) recordsCount);
+
+                for (Map.Entry<TestInvocationContext, Long> entry : contextToTestId.entrySet()) {
+                    if (entry.getKey() != null && entry.getValue() != null) {
+                        byte[] bytes = CorrelationDataCodec.encodeCompact(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                        output.writeLong(entry.getValue());
+                        output.writeInt(bytes.length);
+                        output.write(bytes);
+                    }
+                }
+            }
+
+            try {
+                Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.zebrunner.agent.testng.core.retry;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+
+/**
+ * Decides whether a known issue is attached to a failed test, asking Zebrunner only once per test and failure.
+ * <p>
+ * Verdicts are cached by test (method and data provider index) and fingerprint of the failure stacktrace,
+ * since Zebrunner attaches known issues to tests. The fingerprint is computed from the stacktrace with volatile parts
+ * (object identity hashes, UUIDs and whitespaces) normalized, so the same failure of retries of the same test
+ * is resolved locally. Concurrent checks of the same test and failure wait for the verdict of the first one.
+ * The least recently used verdicts are evicted once there are too many of them.
+ */
+@Slf4j
+final class KnownIssueMatcher {
+
+    private static final int MAX_VERDICTS_COUNT = 10_000;
+
+    private static final Pattern IDENTITY_HASH = Pattern.compile("@[0-9a-fA-F]{5,8}\\b");
+    private static final Pattern UUID = Pattern.compile("\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private final Map<VerdictKey, Boolean> verdicts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<VerdictKey, Boolean> eldest) {
+            return this.size() > MAX_VERDICTS_COUNT;
+        }
+
+    });
+    private final Map<VerdictKey, CompletableFuture<Boolean>> pendingChecks = new ConcurrentHashMap<>();
+
+    /**
+     * @param remoteCheck asks Zebrunner whether a known issue is attached to the current test with the given stacktrace
+     */
+    boolean isKnownIssueAttached(MethodKey methodKey, int dataProviderIndex, String stacktrace, Predicate<String> remoteCheck) {
+        VerdictKey key = new VerdictKey(methodKey, dataProviderIndex, fingerprint(stacktrace));
+
+        Boolean verdict = verdicts.get(key);
+        if (verdict != null) {
+            log.debug("Known issue verdict for {} is resolved from the cache", methodKey);
+            return verdict;
+        }
+
+        CompletableFuture<Boolean> check = new CompletableFuture<>();
+        CompletableFuture<Boolean> pendingCheck = pendingChecks.putIfAbsent(key, check);
+        if (pendingCheck != null) {
+            log.debug("Waiting for the pending known issue verdict for {}", methodKey);
+            return pendingCheck.join();
+        }
+
+        verdict = false;
+        try {
+            // the verdict could be received while the pending check was being registered
+            verdict = verdicts.get(key);
+            if (verdict == null) {
+                verdict = remoteCheck.test(stacktrace);
+                verdicts.put(key, verdict);
+            }
+            return verdict;
+        } finally {
+            pendingChecks.remove(key);
+            check.complete(Boolean.TRUE.equals(verdict));
+        }
+    }
+
+    /**
+     * @return 64-bit FNV-1a hash of the normalized stacktrace
+     */
+    static long fingerprint(String stacktrace) {
+        String normalizedStacktrace = IDENTITY_HASH.matcher(stacktrace).replaceAll("@#");
+        normalizedStacktrace = UUID.matcher(normalizedStacktrace).replaceAll("#");
+        normalizedStacktrace = WHITESPACES.matcher(normalizedStacktrace).replaceAll(" ").trim();
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalizedStacktrace.length(); i++) {
+            hash ^= normalizedStacktrace.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @Value
+    private static class VerdictKey {
+
+        MethodKey methodKey;
+        int dataProviderIndex;
+        long fingerprint;
+
+    }
+
+}
@@ -3,6 +3,9 @@ package com.zebrunner.agent.testng.core.retry;
 import com.zebrunner.agent.core.config.ConfigurationHolder;
 import com.zebrunner.agent.core.registrar.TestRunRegistrar;
 import com.zebrunner.agent.testng.core.ExceptionUtils;
+import com.zebrunner.agent.testng.core.TestContextRegistry;
+import com.zebrunner.agent.testng.core.metrics.AgentMetrics;
+import com.zebrunner.agent.testng.core.registrar.TestRunRegistrarHolder;
 import com.zebrunner.agent.testng.listener.RetryService;
 import lombok.extern.slf4j.Slf4j;
 import org.testng.IRetryAnalyzer;
@@ -11,36 +14,40 @@ import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 import org.testng.internal.objects.InstanceCreator;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * Retry analyzer interceptor that keeps track of invocation index and checks if all test method retries has
  * been executed. Method with retries is only registered once to Zebrunner
+ * <p>
+ * Original retry analyzers are kept in the scope of the test context (see {@link TestContextRegistry}),
+ * so the same test method running in several {@code <test>}s at the same time has independent retry analyzers.
  */
 @Slf4j
 public class RetryAnalyzerInterceptor implements IRetryAnalyzer {
 
-    private static final Map<String, IRetryAnalyzer> RETRY_ANALYZER_KEY_TO_IDENTITY = new ConcurrentHashMap<>();
+    private static final KnownIssueMatcher KNOWN_ISSUE_MATCHER = new KnownIssueMatcher();
     private final TestRunRegistrar registrar;
 
     public RetryAnalyzerInterceptor() {
-        this.registrar = TestRunRegistrar.getInstance();
+        this.registrar = TestRunRegistrarHolder.get();
     }
 
     @Override
     public boolean retry(ITestResult result) {
+        long startedAt = AgentMetrics.start();
         ITestNGMethod method = result.getMethod();
         ITestContext context = result.getTestContext();
 
-        IRetryAnalyzer retryAnalyzer = getOriginalRetryAnalyzer(result);
+        RetryAnalyzerKey retryAnalyzerKey = RetryService.buildRetryAnalyzerKey(result);
+        IRetryAnalyzer retryAnalyzer = getOriginalRetryAnalyzer(retryAnalyzerKey, result);
         boolean needRetry = retryAnalyzer.retry(result);
 
         // checking whether there are some known issues were mapped for stacktrace and skipping retry logic in such case
         if (needRetry && !ConfigurationHolder.shouldRetryKnownIssues()) {
             String stacktrace = ExceptionUtils.getStacktrace(result.getThrowable());
 
-            if (registrar.isKnownIssueAttachedToTest(stacktrace)) {
+            if (KNOWN_ISSUE_MATCHER.isKnownIssueAttached(
+                    retryAnalyzerKey.getMethodKey(), retryAnalyzerKey.getDataProviderIndex(), stacktrace, registrar::isKnownIssueAttachedToTest
+            )) {
                 log.info("Known issue is attached to test for current failure stacktrace. Hence skipping retry logic");
                 needRetry = false;
             } else {
@@ -53,18 +60,30 @@ public class RetryAnalyzerInterceptor implements IRetryAnalyzer {
         if (needRetry) {
             RetryService.setRetryStarted(method, context);
         } else {
+            TestContextRegistry.get(context).getRetryAnalyzers().remove(retryAnalyzerKey);
             RetryService.setRetryFinished(method, context);
         }
+        AgentMetrics.record("RetryAnalyzerInterceptor.retry", startedAt);
         return needRetry;
     }
 
-    private IRetryAnalyzer getOriginalRetryAnalyzer(ITestResult result) {
-        return RETRY_ANALYZER_KEY_TO_IDENTITY.computeIfAbsent(
-                RetryService.buildRetryAnalyzerClassKey(result),
+    private IRetryAnalyzer getOriginalRetryAnalyzer(RetryAnalyzerKey retryAnalyzerKey, ITestResult result) {
+        return TestContextRegistry.get(result.getTestContext()).getRetryAnalyzers().computeIfAbsent(
+                retryAnalyzerKey,
                 $ -> RetryService.getRetryAnalyzerClass(result.getTestContext(), result.getMethod())
                                  .map(InstanceCreator::newInstance)
                                  .orElseThrow(() -> new RuntimeException("There are no retry analyzer to apply."))
         );
     }
 
+    /**
+     * Evicts the original retry analyzer of the test invocation, since its retry chain is finished
+     */
+    public static void releaseRetryAnalyzer(ITestResult result) {
+        TestContextRegistry.Scope scope = TestContextRegistry.find(result.getTestContext());
+        if (scope != null && !scope.getRetryAnalyzers().isEmpty()) {
+            scope.getRetryAnalyzers().remove(RetryService.buildRetryAnalyzerKey(result));
+        }
+    }
+
 }
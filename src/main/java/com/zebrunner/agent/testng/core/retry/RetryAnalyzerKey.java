@@ -0,0 +1,19 @@
+package com.zebrunner.agent.testng.core.retry;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+import lombok.Value;
+
+/**
+ * Identifies the original retry analyzer instance of a specific test method invocation
+ */
+@Value
+public class RetryAnalyzerKey {
+
+    /**
+     * Execution id of the invocation, which is shared by its retries
+     */
+    long executionId;
+    MethodKey methodKey;
+    int dataProviderIndex;
+
+}
@@ -2,13 +2,17 @@ package com.zebrunner.agent.testng.core.retry;
 
 import lombok.ToString;
 
+/**
+ * State of a retry chain of a single test method invocation.
+ * Transitions are safe to be performed and observed by different threads.
+ */
 @ToString
 public class RetryItemContext {
 
     /**
      * Is true if retry analyzer is started
      */
-    private boolean started;
+    private volatile boolean started;
 
     public void setStarted() {
         this.started = true;
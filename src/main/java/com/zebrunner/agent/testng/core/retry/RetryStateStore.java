@@ -0,0 +1,64 @@
+package com.zebrunner.agent.testng.core.retry;
+
+import lombok.Value;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.zebrunner.agent.testng.core.ExecutionFrame;
+import com.zebrunner.agent.testng.core.MethodKey;
+
+/**
+ * Keeps states of the retry chains of a test context which are in progress.
+ * <p>
+ * A store belongs to the scope of a single test context (see {@link com.zebrunner.agent.testng.core.TestContextRegistry}),
+ * so the same test method running in several {@code <test>}s at the same time has independent retry chains,
+ * and the states left in the store are released together with the scope.
+ * <p>
+ * A retry chain is identified by the execution id of the invocation (see {@link ExecutionFrame}),
+ * the test method and its parameter invocation count, so the state does not depend on names or ids of threads
+ * which may be reused or absent (e.g. for virtual threads).
+ * The state is removed as soon as the retry chain is finished.
+ */
+public final class RetryStateStore {
+
+    private final Map<ExecutionKey, RetryItemContext> retryItemContexts = new ConcurrentHashMap<>();
+
+    public void setStarted(MethodKey methodKey, int parameterInvocationCount) {
+        retryItemContexts.computeIfAbsent(ExecutionKey.current(methodKey, parameterInvocationCount), $ -> new RetryItemContext())
+                         .setStarted();
+    }
+
+    public void setFinished(MethodKey methodKey, int parameterInvocationCount) {
+        RetryItemContext retryItemContext = retryItemContexts.remove(ExecutionKey.current(methodKey, parameterInvocationCount));
+        if (retryItemContext != null) {
+            retryItemContext.setFinished();
+        }
+    }
+
+    public boolean isFinished(MethodKey methodKey, int parameterInvocationCount) {
+        RetryItemContext retryItemContext = retryItemContexts.get(ExecutionKey.current(methodKey, parameterInvocationCount));
+        return retryItemContext == null || retryItemContext.isFinished();
+    }
+
+    /**
+     * @return number of retry chains which are in progress
+     */
+    public int countInProgress() {
+        return retryItemContexts.size();
+    }
+
+    @Value
+    private static class ExecutionKey {
+
+        long executionId;
+        MethodKey methodKey;
+        int parameterInvocationCount;
+
+        static ExecutionKey current(MethodKey methodKey, int parameterInvocationCount) {
+            return new ExecutionKey(ExecutionFrame.currentExecutionId(), methodKey, parameterInvocationCount);
+        }
+
+    }
+
+}
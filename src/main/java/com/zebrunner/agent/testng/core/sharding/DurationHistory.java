@@ -0,0 +1,201 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.testng.ITestNGMethod;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
+
+/**
+ * Durations of test methods and their data provider rows recorded by previous runs in a file.
+ * <p>
+ * The history is available only if its file is explicitly configured (see {@link TestNGAgentConfiguration#getDurationHistoryFile()}).
+ * Shards of a run must plan from the same history, so the file is expected to be shared between them. If recording
+ * is enabled, durations of the finished tests are recorded during the run and merged into the file when the run is finished.
+ * The merge holds an exclusive lock of the sibling {@code .lock} file, so forks and shards sharing the file do not lose
+ * updates of each other. A recorded duration is smoothed with the previous one, so a single slow run does not distort
+ * the history. Durations of tests which are not run (e.g. tests of other shards) are kept as is. Durations of invocations
+ * of the same data provider row (e.g. with {@code invocationCount}) are summed up.
+ * <p>
+ * The loaded history is identified by a fingerprint of its content, so shards can verify that they plan from the same history.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class DurationHistory {
+
+    private static final Path HISTORY_FILE = TestNGAgentConfiguration.getDurationHistoryFile();
+    private static final boolean RECORDING_ENABLED = DurationHistory.isRecordingConfigured();
+
+    private static final Map<RowKey, Long> RECORDED_DURATIONS = new ConcurrentHashMap<>();
+    private static volatile Map<String, Map<Integer, Long>> history;
+    private static volatile String fingerprint;
+
+    /**
+     * @return true if the history file is configured
+     */
+    public static boolean isAvailable() {
+        return HISTORY_FILE != null;
+    }
+
+    public static boolean isRecordingEnabled() {
+        return RECORDING_ENABLED;
+    }
+
+    public static void record(ITestNGMethod method, int dataProviderIndex, long durationMillis) {
+        RECORDED_DURATIONS.merge(new RowKey(methodId(MethodKey.of(method)), dataProviderIndex), Math.max(durationMillis, 0), Long::sum);
+    }
+
+    /**
+     * @return total duration of the recorded data provider rows of the method in milliseconds,
+     * or -1 if it is unknown or the history is not available
+     */
+    public static long getExpectedMillis(ITestNGMethod method) {
+        if (!isAvailable()) {
+            return -1;
+        }
+        Map<Integer, Long> rows = DurationHistory.getHistory().get(methodId(MethodKey.of(method)));
+        if (rows == null) {
+            return -1;
+        }
+        long total = 0;
+        for (long duration : rows.values()) {
+            total += duration;
+        }
+        return total;
+    }
+
+    /**
+     * @return fingerprint of the loaded history, or null if the history is not available
+     */
+    public static String getFingerprint() {
+        if (!isAvailable()) {
+            return null;
+        }
+        DurationHistory.getHistory();
+        return fingerprint;
+    }
+
+    /**
+     * Merges durations recorded during the run into the history file
+     */
+    public static void write() {
+        if (!isRecordingEnabled() || RECORDED_DURATIONS.isEmpty()) {
+            return;
+        }
+
+        Path lockFile = HISTORY_FILE.resolveSibling(HISTORY_FILE.getFileName() + ".lock");
+        try {
+            Files.createDirectories(lockFile.getParent());
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    Map<String, Map<Integer, Long>> merged = new HashMap<>();
+                    DurationHistory.readFile(HISTORY_FILE).forEach((methodId, rows) -> merged.put(methodId, new HashMap<>(rows)));
+                    RECORDED_DURATIONS.forEach((key, duration) -> merged.computeIfAbsent(key.getMethodId(), $ -> new HashMap<>())
+                                                                        .merge(key.getDataProviderIndex(), duration, DurationHistory::smooth));
+                    DurationHistoryFile.write(HISTORY_FILE, merged);
+                } finally {
+                    lock.release();
+                }
+            }
+            log.debug("Durations of {} test(s) are written to {}", RECORDED_DURATIONS.size(), HISTORY_FILE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write duration history to {}", HISTORY_FILE, e);
+        }
+    }
+
+    private static long smooth(long previousDuration, long duration) {
+        return (previousDuration + duration) / 2;
+    }
+
+    private static Map<String, Map<Integer, Long>> getHistory() {
+        Map<String, Map<Integer, Long>> history = DurationHistory.history;
+        if (history == null) {
+            synchronized (DurationHistory.class) {
+                history = DurationHistory.history;
+                if (history == null) {
+                    history = DurationHistory.readFile(HISTORY_FILE);
+                    fingerprint = DurationHistory.fingerprint(history);
+                    log.info("Duration history of {} test method(s) with fingerprint {} is loaded from {}",
+                            history.size(), fingerprint, HISTORY_FILE);
+                    DurationHistory.history = history;
+                }
+            }
+        }
+        return history;
+    }
+
+    private static Map<String, Map<Integer, Long>> readFile(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyMap();
+        }
+        try {
+            return DurationHistoryFile.read(file);
+        } catch (IOException e) {
+            log.warn("Could not read duration history from {}", file, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static boolean isRecordingConfigured() {
+        if (!TestNGAgentConfiguration.isDurationHistoryEnabled()) {
+            return false;
+        }
+        if (HISTORY_FILE == null) {
+            log.warn("Durations of tests are not recorded, since the duration history file is not configured");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return 64-bit FNV-1a hash of the history entries in the order of method ids and data provider indices,
+     * so the fingerprint does not depend on the order of entries in the file
+     */
+    static String fingerprint(Map<String, Map<Integer, Long>> methodToRows) {
+        long hash = 0xcbf29ce484222325L;
+        for (Map.Entry<String, Map<Integer, Long>> method : new TreeMap<>(methodToRows).entrySet()) {
+            String methodId = method.getKey();
+            for (int i = 0; i < methodId.length(); i++) {
+                hash = (hash ^ methodId.charAt(i)) * 0x100000001b3L;
+            }
+            for (Map.Entry<Integer, Long> row : new TreeMap<>(method.getValue()).entrySet()) {
+                hash = (hash ^ row.getKey()) * 0x100000001b3L;
+                hash = (hash ^ row.getValue()) * 0x100000001b3L;
+            }
+        }
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * @return id of a test method which is the same across runs and JVMs
+     */
+    static String methodId(MethodKey methodKey) {
+        return methodKey.getClassName() + '.' + methodKey.getMethodName()
+                + '(' + methodKey.getParameterTypes() + ")#" + methodKey.getInstanceIndex();
+    }
+
+    @Value
+    private static class RowKey {
+
+        String methodId;
+        int dataProviderIndex;
+
+    }
+
+}
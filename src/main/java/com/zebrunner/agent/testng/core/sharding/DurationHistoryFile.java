@@ -0,0 +1,87 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary file with durations of test methods recorded by previous runs.
+ * <p>
+ * The file starts with a magic number, format version and number of methods. Every method record is the method id
+ * (see {@link DurationHistory#methodId}) in modified UTF-8, number of rows and pairs of data provider index
+ * (-1 for methods without data provider) and duration of the row in milliseconds.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class DurationHistoryFile {
+
+    private static final int MAGIC = 0x5A524448; // ZRDH
+    private static final int VERSION = 1;
+
+    static Map<String, Map<Integer, Long>> read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unsupported format of duration history file " + path);
+            }
+
+            int methodsCount = input.readInt();
+            Map<String, Map<Integer, Long>> methodToRows = new HashMap<>(methodsCount * 2);
+            for (int i = 0; i < methodsCount; i++) {
+                String methodId = input.readUTF();
+                int rowsCount = input.readInt();
+                Map<Integer, Long> rows = new HashMap<>(rowsCount * 2);
+                for (int j = 0; j < rowsCount; j++) {
+                    rows.put(input.readInt(), (long) input.readInt());
+                }
+                methodToRows.put(methodId, rows);
+            }
+            return methodToRows;
+        } catch (RuntimeException e) {
+            throw new IOException("Could not read duration history file " + path, e);
+        }
+    }
+
+    /**
+     * Writes the durations to a temporary file and atomically moves it to the given path,
+     * so concurrent readers never see a partially written file
+     */
+    static void write(Path path, Map<String, Map<Integer, Long>> methodToRows) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temporaryFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(methodToRows.size());
+
+                for (Map.Entry<String, Map<Integer, Long>> method : methodToRows.entrySet()) {
+                    output.writeUTF(method.getKey());
+                    output.writeInt(method.getValue().size());
+                    for (Map.Entry<Integer, Long> row : method.getValue().entrySet()) {
+                        output.writeInt(row.getKey());
+                        output.writeInt((int) Math.min(row.getValue(), Integer.MAX_VALUE));
+                    }
+                }
+            }
+
+            try {
+                Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+}
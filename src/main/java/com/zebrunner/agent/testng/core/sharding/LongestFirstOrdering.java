@@ -0,0 +1,103 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.testng.IMethodInstance;
+import org.testng.ITestNGMethod;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import com.zebrunner.agent.testng.core.method.MethodDependencyGraph;
+
+/**
+ * Orders test methods of a {@code <test>} running with {@code parallel="methods"}, so the longest methods are started first
+ * and do not become the tail of the run.
+ * <p>
+ * Methods which depend on each other (see {@link MethodDependencyGraph}) are moved together as a group weighted
+ * by the total expected duration of its methods, and keep their relative order. Priorities are not violated:
+ * methods are ordered by priority first, and only methods with the same priority are ordered by duration.
+ * Groups with the same weight keep the order of discovery.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LongestFirstOrdering {
+
+    /**
+     * @param methods   methods of a test in the order of execution
+     * @param durations expected duration of a method in milliseconds, or -1 if it is unknown
+     * @return the methods ordered longest first, or the given methods if no duration is known
+     */
+    public static List<IMethodInstance> order(List<IMethodInstance> methods, ToLongFunction<ITestNGMethod> durations) {
+        if (methods.size() < 2 || !LongestFirstOrdering.isAnyDurationKnown(methods, durations)) {
+            return methods;
+        }
+
+        List<MethodGroup> groups = MethodGroup.of(methods, durations);
+        List<OrderedMethod> orderedMethods = new ArrayList<>(methods.size());
+        for (int groupIndex = 0; groupIndex < groups.size(); groupIndex++) {
+            MethodGroup group = groups.get(groupIndex);
+            for (IMethodInstance methodInstance : group.getMethods()) {
+                orderedMethods.add(new OrderedMethod(methodInstance, group.getWeight(), groupIndex, orderedMethods.size()));
+            }
+        }
+        orderedMethods.sort(Comparator.comparingInt(OrderedMethod::getPriority)
+                                      .thenComparing(Comparator.comparingLong(OrderedMethod::getGroupWeight).reversed())
+                                      .thenComparingInt(OrderedMethod::getGroupIndex)
+                                      .thenComparingInt(OrderedMethod::getPosition));
+
+        List<IMethodInstance> result = new ArrayList<>(methods.size());
+        for (OrderedMethod orderedMethod : orderedMethods) {
+            result.add(orderedMethod.methodInstance);
+        }
+        return result;
+    }
+
+    private static boolean isAnyDurationKnown(List<IMethodInstance> methods, ToLongFunction<ITestNGMethod> durations) {
+        for (IMethodInstance methodInstance : methods) {
+            if (durations.applyAsLong(methodInstance.getMethod()) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class OrderedMethod {
+
+        private final IMethodInstance methodInstance;
+        private final int priority;
+        private final long groupWeight;
+        private final int groupIndex;
+        /**
+         * Position of the method within the groups, so methods of a group keep their relative order
+         */
+        private final int position;
+
+        private OrderedMethod(IMethodInstance methodInstance, long groupWeight, int groupIndex, int position) {
+            this.methodInstance = methodInstance;
+            this.priority = methodInstance.getMethod().getPriority();
+            this.groupWeight = groupWeight;
+            this.groupIndex = groupIndex;
+            this.position = position;
+        }
+
+        private int getPriority() {
+            return priority;
+        }
+
+        private long getGroupWeight() {
+            return groupWeight;
+        }
+
+        private int getGroupIndex() {
+            return groupIndex;
+        }
+
+        private int getPosition() {
+            return position;
+        }
+
+    }
+
+}
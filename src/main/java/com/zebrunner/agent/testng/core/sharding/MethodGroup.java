@@ -0,0 +1,103 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import org.testng.IMethodInstance;
+import org.testng.ITestNGMethod;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+import com.zebrunner.agent.testng.core.method.MethodDependencyGraph;
+
+/**
+ * Methods of a test which depend on each other (see {@link MethodDependencyGraph#getIndependentGroups()})
+ * and must be scheduled together.
+ * <p>
+ * The weight of a method is its expected duration, e.g. taken from {@link DurationHistory}. The weight of a method
+ * with unknown duration is its invocation count multiplied by the average duration of an invocation of the methods
+ * with known durations, or just its invocation count if no duration is known.
+ */
+final class MethodGroup {
+
+    private final List<IMethodInstance> methods;
+    private final long weight;
+    /**
+     * The smallest key of the group methods. Identifies the group consistently across JVMs
+     */
+    private final String key;
+
+    private MethodGroup(List<IMethodInstance> methods, Map<IMethodInstance, Long> weights) {
+        this.methods = methods;
+
+        long weight = 0;
+        String key = null;
+        for (IMethodInstance methodInstance : methods) {
+            weight += weights.get(methodInstance);
+
+            String methodKey = DurationHistory.methodId(MethodKey.of(methodInstance.getMethod()));
+            if (key == null || methodKey.compareTo(key) < 0) {
+                key = methodKey;
+            }
+        }
+        this.weight = weight;
+        this.key = key;
+    }
+
+    /**
+     * @param methods   methods of a test in the order of execution
+     * @param durations expected duration of a method in milliseconds, or -1 if it is unknown
+     * @return independent groups of the methods in the order of the methods
+     */
+    static List<MethodGroup> of(List<IMethodInstance> methods, ToLongFunction<ITestNGMethod> durations) {
+        Map<IMethodInstance, Long> weights = MethodGroup.computeWeights(methods, durations);
+        List<MethodGroup> groups = new ArrayList<>();
+        for (List<IMethodInstance> groupMethods : MethodDependencyGraph.of(methods).getIndependentGroups()) {
+            groups.add(new MethodGroup(groupMethods, weights));
+        }
+        return groups;
+    }
+
+    private static Map<IMethodInstance, Long> computeWeights(List<IMethodInstance> methods, ToLongFunction<ITestNGMethod> durations) {
+        Map<IMethodInstance, Long> knownDurations = new IdentityHashMap<>();
+        long knownTotalDuration = 0;
+        long knownInvocationsCount = 0;
+        for (IMethodInstance methodInstance : methods) {
+            long duration = durations.applyAsLong(methodInstance.getMethod());
+            if (duration >= 0) {
+                knownDurations.put(methodInstance, duration);
+                knownTotalDuration += duration;
+                knownInvocationsCount += invocationCount(methodInstance);
+            }
+        }
+        double invocationDuration = knownInvocationsCount != 0 ? Math.max((double) knownTotalDuration / knownInvocationsCount, 1) : 1;
+
+        Map<IMethodInstance, Long> weights = new IdentityHashMap<>();
+        for (IMethodInstance methodInstance : methods) {
+            Long duration = knownDurations.get(methodInstance);
+            weights.put(methodInstance, duration != null
+                    ? duration
+                    : Math.round(invocationCount(methodInstance) * invocationDuration));
+        }
+        return weights;
+    }
+
+    private static int invocationCount(IMethodInstance methodInstance) {
+        return Math.max(methodInstance.getMethod().getInvocationCount(), 1);
+    }
+
+    List<IMethodInstance> getMethods() {
+        return methods;
+    }
+
+    long getWeight() {
+        return weight;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+}
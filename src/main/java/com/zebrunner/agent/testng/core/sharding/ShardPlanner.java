@@ -0,0 +1,71 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.testng.IMethodInstance;
+import org.testng.ITestNGMethod;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import com.zebrunner.agent.testng.core.method.MethodDependencyGraph;
+
+/**
+ * Splits test methods of a {@code <test>} between shards, so several JVMs (e.g. CI nodes) can run the same suite
+ * with every method executed by exactly one of them.
+ * <p>
+ * Methods which depend on each other (directly or via groups, see {@link MethodDependencyGraph}) are never split,
+ * and dependencies are resolved within a factory instance, so dependant chains of an instance stay together.
+ * Groups of methods are assigned to the least loaded shard, starting from the heaviest group (longest processing time first).
+ * Groups are weighted by expected durations of their methods, e.g. taken from {@link DurationHistory}.
+ * Ties are resolved by method signature and factory instance index, so every JVM computes the same assignment
+ * from the same set of methods and the same history without any coordination.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ShardPlanner {
+
+    /**
+     * @param methods     methods of a test in the order of execution
+     * @param shardIndex  0-based index of the current shard
+     * @param totalShards total number of shards
+     * @param durations   expected duration of a method in milliseconds, or -1 if it is unknown
+     * @return methods assigned to the current shard in the original order
+     */
+    public static List<IMethodInstance> select(List<IMethodInstance> methods,
+                                               int shardIndex,
+                                               int totalShards,
+                                               ToLongFunction<ITestNGMethod> durations) {
+        if (totalShards <= 1 || methods.isEmpty()) {
+            return methods;
+        }
+
+        List<MethodGroup> groups = MethodGroup.of(methods, durations);
+        groups.sort(Comparator.comparingLong(MethodGroup::getWeight).reversed()
+                              .thenComparing(MethodGroup::getKey));
+
+        long[] loads = new long[totalShards];
+        Set<IMethodInstance> selectedMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MethodGroup group : groups) {
+            int shard = 0;
+            for (int i = 1; i < loads.length; i++) {
+                if (loads[i] < loads[shard]) {
+                    shard = i;
+                }
+            }
+            loads[shard] += group.getWeight();
+            if (shard == shardIndex) {
+                selectedMethods.addAll(group.getMethods());
+            }
+        }
+
+        return methods.stream()
+                      .filter(selectedMethods::contains)
+                      .collect(Collectors.toList());
+    }
+
+}
@@ -1,72 +1,132 @@
 package com.zebrunner.agent.testng.core.testname;
 
 import com.zebrunner.agent.testng.listener.RunContextService;
+import org.testng.ISuite;
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 import org.testng.annotations.Test;
 
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultTestNameResolver implements TestNameResolver {
 
-    private final ConcurrentHashMap<String, AtomicInteger> testNameToInvCounter = new ConcurrentHashMap<>();
+    private final Map<ITestContext, TestContextNames> testContextToNames = new ConcurrentHashMap<>();
+    /**
+     * Invocation counters of the test names (a data provider row of a method). Like test names, the counters are shared
+     * by all the test contexts, so invocations of the same test name are numbered consecutively across {@code <test>}s
+     */
+    private final Map<String, AtomicInteger> testNameToInvCounter = new ConcurrentHashMap<>();
+    /**
+     * Expected number of invocations of every test name within all the suites seen so far. Methods of several
+     * factory instances and test contexts have the same name, so the invocation counts of the methods with the same name are summed up
+     */
+    private final Map<String, Integer> methodNameToInvocationCount = new ConcurrentHashMap<>();
+    private final Set<ISuite> countedSuites = Collections.newSetFromMap(new WeakHashMap<>());
 
     @Override
     public String resolve(ITestResult testResult) {
-        String testName = getMethodName(testResult);
+        TestContextNames testContextNames = testContextToNames.computeIfAbsent(testResult.getTestContext(), context -> {
+            this.countExpectedInvocations(context.getSuite());
+            return new TestContextNames(context);
+        });
 
-        testName = appendDataProviderLine(testResult, testName);
-        testName = appendInvocationCount(testResult, testName);
+        String methodName = getMethodName(testResult.getMethod());
+        StringBuilder testName = new StringBuilder(methodName);
 
-        return testName;
+        appendDataProviderLine(testResult, testName);
+        appendInvocationCount(testResult, testContextNames, methodName, testName);
+
+        return testName.toString();
+    }
+
+    @Override
+    public void release(ITestContext context) {
+        testContextToNames.remove(context);
     }
 
-    private String appendDataProviderLine(ITestResult testResult, String testName) {
+    /**
+     * The line number is zero-padded to the length of the data provider size. The size of a streamed data provider
+     * is not known while its tests are running, so line numbers of streamed rows are not padded
+     */
+    private void appendDataProviderLine(ITestResult testResult, StringBuilder testName) {
         ITestNGMethod testMethod = testResult.getMethod();
         ITestContext testContext = testResult.getTestContext();
         Object[] parameters = testResult.getParameters();
-        int dataProviderSize = RunContextService.getDataProviderSize(testMethod, testContext);
 
-        if (dataProviderSize > 0) {
+        boolean streamed = RunContextService.isDataProviderStreamed(testMethod, testContext);
+        int indexMaxLength = 0;
+        if (!streamed) {
+            int dataProviderSize = RunContextService.getDataProviderSize(testMethod, testContext);
             // adding extra zero at the beginning of the data provider line number
-            int indexMaxLength = Integer.toString(dataProviderSize).length() + 1;
-            String lineFormat = " [L%0" + indexMaxLength + "d]";
-            int index = RunContextService.getCurrentDataProviderIndex(testMethod, testContext, parameters) + 1;
-            testName += String.format(lineFormat, index);
+            indexMaxLength = dataProviderSize > 0 ? countDigits(dataProviderSize) + 1 : 0;
         }
 
-        return testName;
+        if (streamed || indexMaxLength > 0) {
+            int index = RunContextService.getCurrentDataProviderIndex(testMethod, testContext, parameters) + 1;
+
+            testName.append(" [L");
+            appendZeroPadded(testName, index, indexMaxLength);
+            testName.append(']');
+        }
     }
 
-    private String appendInvocationCount(ITestResult testResult, String testName) {
-        int expectedInvocationCount = getInvocationCount(testResult);
+    private void appendInvocationCount(ITestResult testResult, TestContextNames testContextNames, String methodName, StringBuilder testName) {
+        int expectedInvocationCount = testContextNames.getInvocationCount(testResult.getMethod());
         if (expectedInvocationCount > 1) {
             // adding extra zero at the beginning of the invocation count (inspired by Vadim Delendik)
-            int indexMaxLength = Integer.toString(expectedInvocationCount).length() + 1;
-            String lineFormat = " [InvCount=%0" + indexMaxLength + "d]";
+            int indexMaxLength = countDigits(expectedInvocationCount) + 1;
+            int currentInvocationCount = this.incrementInvocationCounter(methodName, testName.toString());
+
+            testName.append(" [InvCount=");
+            appendZeroPadded(testName, currentInvocationCount, indexMaxLength);
+            testName.append(']');
+        }
+    }
 
-            int currentInvocationCount = testNameToInvCounter.computeIfAbsent(testName, $ -> new AtomicInteger(0))
-                                                             .incrementAndGet();
-            testName += String.format(lineFormat, currentInvocationCount);
+    /**
+     * Sums up the expected invocation counts of the methods of all the test contexts of the suite. The methods
+     * of all the {@code <test>}s of a suite are known as soon as the suite is created
+     */
+    private synchronized void countExpectedInvocations(ISuite suite) {
+        if (!countedSuites.add(suite)) {
+            return;
         }
-        return testName;
+        Set<ITestNGMethod> methods = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ITestNGMethod method : this.getAllMethods(suite)) {
+            if (methods.add(method) && method.getInvocationCount() > 1) {
+                methodNameToInvocationCount.merge(getMethodName(method), method.getInvocationCount(), Integer::sum);
+            }
+        }
+    }
+
+    List<ITestNGMethod> getAllMethods(ISuite suite) {
+        return suite != null ? suite.getAllMethods() : Collections.emptyList();
     }
 
-    private int getInvocationCount(ITestResult testResult) {
-        ITestNGMethod[] methods = testResult.getTestContext().getAllTestMethods();
-        return Arrays.stream(methods)
-                     .filter(method -> method.equals(testResult.getMethod()))
-                     .findFirst()
-                     .map(ITestNGMethod::getInvocationCount)
-                     .orElse(0);
+    /**
+     * Increments the invocation counter of the test name. The counter is evicted once all the expected invocations
+     * of the test name are counted, so the number of counters does not grow with the number of data provider rows
+     */
+    private int incrementInvocationCounter(String methodName, String testName) {
+        AtomicInteger counter = testNameToInvCounter.computeIfAbsent(testName, $ -> new AtomicInteger(0));
+        int invocationCount = counter.incrementAndGet();
+        if (invocationCount >= methodNameToInvocationCount.getOrDefault(methodName, Integer.MAX_VALUE)) {
+            testNameToInvCounter.remove(testName, counter);
+        }
+        return invocationCount;
     }
 
-    private String getMethodName(ITestResult testResult) {
-        ITestNGMethod method = testResult.getMethod();
+    private static String getMethodName(ITestNGMethod method) {
         Test testAnnotation = method.getConstructorOrMethod()
                                     .getMethod()
                                     .getAnnotation(Test.class);
@@ -77,4 +137,49 @@ public class DefaultTestNameResolver implements TestNameResolver {
                        .orElseGet(method::getMethodName);
     }
 
+    private static int countDigits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    static void appendZeroPadded(StringBuilder output, int value, int length) {
+        if (value < 0) {
+            output.append('-');
+            length--;
+        }
+        String digits = Integer.toString(Math.abs(value));
+        for (int i = digits.length(); i < length; i++) {
+            output.append('0');
+        }
+        output.append(digits);
+    }
+
+    /**
+     * Data needed to resolve names of tests of a specific test context
+     */
+    private static class TestContextNames {
+
+        /**
+         * Expected invocation counts of the test methods. Computed once, since the methods of a test context are not changed
+         */
+        private final Map<ITestNGMethod, Integer> methodToInvocationCount;
+
+        TestContextNames(ITestContext context) {
+            ITestNGMethod[] methods = context.getAllTestMethods();
+            this.methodToInvocationCount = new HashMap<>(methods.length * 2);
+            for (ITestNGMethod method : methods) {
+                methodToInvocationCount.putIfAbsent(method, method.getInvocationCount());
+            }
+        }
+
+        int getInvocationCount(ITestNGMethod method) {
+            return methodToInvocationCount.getOrDefault(method, 0);
+        }
+
+    }
+
 }
@@ -1,9 +1,16 @@
 package com.zebrunner.agent.testng.core.testname;
 
+import org.testng.ITestContext;
 import org.testng.ITestResult;
 
 public interface TestNameResolver {
 
     String resolve(ITestResult testResult);
 
+    /**
+     * Releases data kept by the resolver for the finished test context
+     */
+    default void release(ITestContext context) {
+    }
+
 }
@@ -9,8 +9,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
+import com.zebrunner.agent.testng.core.cucumber.CucumberSupport;
+import com.zebrunner.agent.testng.core.dataprovider.DataProviderFingerprints;
+import com.zebrunner.agent.testng.core.metrics.AgentMetrics;
 
 @Slf4j
 public class DataProviderInterceptor implements IDataProviderInterceptor {
@@ -20,25 +27,62 @@ public class DataProviderInterceptor implements IDataProviderInterceptor {
                                         IDataProviderMethod dataProviderMethod,
                                         ITestNGMethod method,
                                         ITestContext context) {
-        log.debug("Injecting DataProviderInterceptor -> intercept");
-        // there is an issue with TestNG that in some cases
-        // a IDataProviderInterceptor instance can be registered and invoked two or more times in a row.
-        // in order to not perform filtration many times, we check type of the original iterator here
-        if (original instanceof TrackableIterator) {
-            return original;
-        } else {
-            List<Object[]> dataProviderData = this.toArrayList(original);
-            RunContextService.setDataProviderData(method, context, dataProviderData);
-
-            if (com.zebrunner.agent.core.registrar.RunContextService.isRerun()) {
-                List<Integer> indicesForRerun = RunContextService.getDataProviderIndicesForRerun(method, context);
-                if (!indicesForRerun.isEmpty()) {
-                    dataProviderData = filterDataProviderData(dataProviderData, indicesForRerun);
+        long startedAt = AgentMetrics.start();
+        try {
+            log.debug("Injecting DataProviderInterceptor -> intercept");
+            // there is an issue with TestNG that in some cases
+            // a IDataProviderInterceptor instance can be registered and invoked two or more times in a row.
+            // in order to not perform filtration many times, we check type of the original iterator here
+            if (original instanceof TrackableIterator) {
+                return original;
+            } else if (TestNGAgentConfiguration.isDataProviderStreamingEnabled()) {
+                return this.stream(original, method, context);
+            } else {
+                List<Object[]> dataProviderData = this.toArrayList(original);
+                RunContextService.setDataProviderData(method, context, dataProviderData);
+
+                if (com.zebrunner.agent.core.registrar.RunContextService.isRerun()) {
+                    List<Integer> indicesForRerun = RunContextService.getDataProviderIndicesForRerun(method, context);
+                    if (!indicesForRerun.isEmpty()) {
+                        dataProviderData = filterDataProviderData(dataProviderData, indicesForRerun);
+                    }
                 }
+
+                return new TrackableIterator(dataProviderData.iterator(), method, context);
             }
+        } finally {
+            AgentMetrics.record("DataProviderInterceptor.intercept", startedAt);
+        }
+    }
 
+    /**
+     * Hands data provider rows over to TestNG as soon as they are produced by the original iterator.
+     * Instead of the rows, only their fingerprints are retained in order to resolve index of a row later.
+     */
+    private Iterator<Object[]> stream(Iterator<Object[]> original, ITestNGMethod method, ITestContext context) {
+        PeekingIterator peekingIterator = new PeekingIterator(original);
+        // rows of cucumber data providers are matched by pickles, which requires the rows to be retained.
+        // such data providers are small enough to be materialized
+        if (CucumberSupport.isCucumberRow(peekingIterator.peek())) {
+            List<Object[]> dataProviderData = this.toArrayList(peekingIterator);
+            RunContextService.setDataProviderData(method, context, dataProviderData);
             return new TrackableIterator(dataProviderData.iterator(), method, context);
         }
+
+        BitSet indicesForRerun = null;
+        if (com.zebrunner.agent.core.registrar.RunContextService.isRerun()) {
+            List<Integer> indices = RunContextService.getDataProviderIndicesForRerun(method, context);
+            if (!indices.isEmpty()) {
+                indicesForRerun = new BitSet();
+                indices.forEach(indicesForRerun::set);
+            }
+        }
+
+        DataProviderFingerprints fingerprints = new DataProviderFingerprints();
+        RunContextService.setDataProviderFingerprints(method, context, fingerprints);
+
+        Iterator<Object[]> streamingIterator = new StreamingIterator(peekingIterator, indicesForRerun, fingerprints);
+        return new TrackableIterator(streamingIterator, method, context);
     }
 
     private <T> List<T> toArrayList(Iterator<T> iterator) {
@@ -61,6 +105,94 @@ public class DataProviderInterceptor implements IDataProviderInterceptor {
         return filteredData;
     }
 
+    @RequiredArgsConstructor
+    private static class PeekingIterator implements Iterator<Object[]> {
+
+        private final Iterator<Object[]> originalIterator;
+        private boolean peeked;
+        private Object[] peekedRow;
+
+        /**
+         * @return next row without consuming it or null if there are no more rows
+         */
+        private Object[] peek() {
+            if (!peeked && originalIterator.hasNext()) {
+                peekedRow = originalIterator.next();
+                peeked = true;
+            }
+            return peekedRow;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return peeked || originalIterator.hasNext();
+        }
+
+        @Override
+        public Object[] next() {
+            if (peeked) {
+                Object[] row = peekedRow;
+                peeked = false;
+                peekedRow = null;
+                return row;
+            }
+            return originalIterator.next();
+        }
+
+    }
+
+    /**
+     * Iterates through the original data provider rows registering their fingerprints.
+     * On rerun, the rows not selected for rerun are skipped and
+     * the iteration stops as soon as the last row for rerun is read.
+     */
+    @RequiredArgsConstructor
+    private static class StreamingIterator implements Iterator<Object[]> {
+
+        private final Iterator<Object[]> originalIterator;
+        /**
+         * Indices of the rows for rerun or null if all the rows must be iterated through
+         */
+        private final BitSet indicesForRerun;
+        private final DataProviderFingerprints fingerprints;
+        private int originalIndex = -1;
+        private boolean nextRowRead;
+        private Object[] nextRow;
+
+        @Override
+        public boolean hasNext() {
+            while (!nextRowRead && this.hasMoreRowsToRead()) {
+                Object[] row = originalIterator.next();
+                originalIndex++;
+
+                if (indicesForRerun == null || indicesForRerun.get(originalIndex)) {
+                    fingerprints.add(originalIndex, row);
+                    nextRow = row;
+                    nextRowRead = true;
+                }
+            }
+            return nextRowRead;
+        }
+
+        private boolean hasMoreRowsToRead() {
+            // BitSet.length() is the index of the highest set bit plus one
+            return (indicesForRerun == null || originalIndex + 1 < indicesForRerun.length())
+                    && originalIterator.hasNext();
+        }
+
+        @Override
+        public Object[] next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = nextRow;
+            nextRow = null;
+            nextRowRead = false;
+            return row;
+        }
+
+    }
+
     @RequiredArgsConstructor
     private static class TrackableIterator implements Iterator<Object[]> {
 
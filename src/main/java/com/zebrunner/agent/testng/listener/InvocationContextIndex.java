@@ -0,0 +1,71 @@
+package com.zebrunner.agent.testng.listener;
+
+import org.testng.ITestNGMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+
+/**
+ * Index of test invocation contexts used to look up tests of a rerun in constant time.
+ * <p>
+ * The contexts are indexed by key of the test method (class name, method signature and factory instance index)
+ * and then by data provider index.
+ */
+final class InvocationContextIndex {
+
+    private final Map<MethodKey, MethodInvocations> index = new ConcurrentHashMap<>();
+
+    void add(TestInvocationContext context, Long testId) {
+        if (context.getClassName() == null || context.getMethodName() == null) {
+            return;
+        }
+
+        MethodKey methodKey = MethodKey.of(
+                context.getClassName(), context.getMethodName(), context.getParameterClassNames(), context.getInstanceIndex()
+        );
+        index.computeIfAbsent(methodKey, $ -> new MethodInvocations())
+             .add(context, testId);
+    }
+
+    /**
+     * Returns invocations of the test method belonging to the same factory instance as the given method
+     */
+    Optional<MethodInvocations> find(ITestNGMethod method) {
+        return Optional.ofNullable(index.get(MethodKey.of(method)));
+    }
+
+    /**
+     * Invocations of a test method belonging to a specific factory instance
+     */
+    static final class MethodInvocations {
+
+        private final Map<TestInvocationContext, Long> contextToTestId = new ConcurrentHashMap<>();
+        private final Map<Integer, Long> dataProviderIndexToTestId = new ConcurrentHashMap<>();
+
+        private void add(TestInvocationContext context, Long testId) {
+            contextToTestId.putIfAbsent(context, testId);
+            dataProviderIndexToTestId.putIfAbsent(context.getDataProviderIndex(), testId);
+        }
+
+        Map<TestInvocationContext, Long> getContextToTestId() {
+            return Collections.unmodifiableMap(contextToTestId);
+        }
+
+        List<TestInvocationContext> getContexts() {
+            return new ArrayList<>(contextToTestId.keySet());
+        }
+
+        Optional<Long> getTestId(int dataProviderIndex) {
+            return Optional.ofNullable(dataProviderIndexToTestId.get(dataProviderIndex));
+        }
+
+    }
+
+}
@@ -1,53 +1,57 @@
 package com.zebrunner.agent.testng.listener;
 
+import lombok.extern.slf4j.Slf4j;
 import org.testng.IMethodInstance;
 import org.testng.IMethodInterceptor;
 import org.testng.IRetryAnalyzer;
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 import org.testng.TestRunner;
+import org.testng.xml.XmlSuite;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import com.zebrunner.agent.core.registrar.RerunListener;
 import com.zebrunner.agent.core.registrar.domain.RunContextTestSummary;
 import com.zebrunner.agent.testng.core.FactoryInstanceHolder;
 import com.zebrunner.agent.testng.core.TestInvocationContext;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration.ShardingStrategy;
+import com.zebrunner.agent.testng.core.correlation.CorrelationDataReader;
 import com.zebrunner.agent.testng.core.method.DependantMethodResolver;
+import com.zebrunner.agent.testng.core.metrics.AgentMetrics;
 import com.zebrunner.agent.testng.core.retry.RetryAnalyzerInterceptor;
+import com.zebrunner.agent.testng.core.sharding.DurationHistory;
+import com.zebrunner.agent.testng.core.sharding.LongestFirstOrdering;
+import com.zebrunner.agent.testng.core.sharding.ShardPlanner;
 
+@Slf4j
 public class RerunAwareListener implements RerunListener, IMethodInterceptor {
 
+    private static final ToLongFunction<ITestNGMethod> NO_DURATIONS = method -> -1;
+
     @Override
     public void onRerun(List<RunContextTestSummary> tests) {
-        Map<TestInvocationContext, Long> invocationContexts = this.getInvocationContexts(tests);
+        // processes test correlation data in order to restore original test execution context for appropriate test
+        Map<TestInvocationContext, Long> invocationContexts = new CorrelationDataReader().readAll(tests);
         RunContextService.addInvocationContexts(invocationContexts);
     }
 
-    /**
-     * Processes test correlation data in order to restore original test execution context for appropriate test
-     *
-     * @param tests tests
-     * @return collection of test execution contexts
-     */
-    private Map<TestInvocationContext, Long> getInvocationContexts(List<RunContextTestSummary> tests) {
-        return tests.stream()
-                    .collect(Collectors.toMap(
-                            test -> TestInvocationContext.fromJsonString(test.getCorrelationData()),
-                            RunContextTestSummary::getId,
-                            (testId1, testId2) -> testId1
-                    ));
-    }
-
     /**
      * Used to alter TestNG test run plan - before every test method invocation this interceptor will be called to check
      * if this test method is present in rerun plan. If method is not present or does not depends on method in rerun plan -
      * it will be dropped from test run plan.
      * <p>
+     * If sharding is configured (see {@link TestNGAgentConfiguration#getTotalShards()}), only the methods assigned
+     * to the shard of this JVM are left in the plan. If longest-first ordering is enabled
+     * (see {@link TestNGAgentConfiguration#isLongestFirstOrderingEnabled()}), methods of tests with {@code parallel="methods"}
+     * are reordered to start the longest ones first.
+     * <p>
      * This interceptor is executed every time test method is discovered.
      *
      * @param methods initial set of test methods discovered by TestNG for this test run
@@ -56,34 +60,91 @@ public class RerunAwareListener implements RerunListener, IMethodInterceptor {
      */
     @Override
     public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
-        // Collect factory instances to resolve a sequence and mark run items with sequence index
-        TestRunner runner = (TestRunner) context;
-        FactoryInstanceHolder.registerInstances(runner.getTestClasses());
-        methods.forEach(methodInstance -> this.addRetryInterceptor(methodInstance.getMethod(), context));
+        long startedAt = AgentMetrics.start();
+        try {
+            // Collect factory instances to resolve a sequence and mark run items with sequence index
+            TestRunner runner = (TestRunner) context;
+            FactoryInstanceHolder.registerInstances(runner.getTestClasses());
+            methods.forEach(methodInstance -> this.addRetryInterceptor(methodInstance.getMethod(), context));
+
+            if (!com.zebrunner.agent.core.registrar.RunContextService.isRerun()) {
+                return this.orderLongestFirst(this.selectShard(methods, context), context);
+            }
+
+            Set<IMethodInstance> actualMethodsForRerun = this.getMethodsForRerun(methods);
+            if (RunContextService.countInvocationContexts() < actualMethodsForRerun.size()) {
+                Set<ITestNGMethod> methodsForRerun = actualMethodsForRerun.stream()
+                                                                          .map(IMethodInstance::getMethod)
+                                                                          .collect(Collectors.toSet());
+                RunContextService.addFullExecutionPlanContexts(methodsForRerun);
+            }
+
+            actualMethodsForRerun.forEach(methodInstance -> this.setDataProviderForRerun(methodInstance.getMethod(), runner));
+
+            // We must have the same execution order as it was before manipulations.
+            List<IMethodInstance> methodsForRerun = methods.stream()
+                                                           .filter(actualMethodsForRerun::contains)
+                                                           .collect(Collectors.toList());
+            return this.orderLongestFirst(this.selectShard(methodsForRerun, context), context);
+        } finally {
+            AgentMetrics.record("RerunAwareListener.intercept", startedAt);
+        }
+    }
 
-        if (!com.zebrunner.agent.core.registrar.RunContextService.isRerun()) {
+    /**
+     * Leaves only the methods assigned to the shard of this JVM if sharding is configured.
+     * Methods are split deterministically, so every shard computes the same assignment.
+     */
+    private List<IMethodInstance> selectShard(List<IMethodInstance> methods, ITestContext context) {
+        int totalShards = TestNGAgentConfiguration.getTotalShards();
+        if (totalShards <= 1) {
+            return methods;
+        }
+        int shardIndex = TestNGAgentConfiguration.getShardIndex();
+        if (shardIndex == -1) {
+            log.warn("Sharding is not applied to test '{}', since the shard index is invalid", context.getName());
             return methods;
         }
 
-        Set<IMethodInstance> actualMethodsForRerun = this.getMethodsForRerun(methods);
-        if (RunContextService.countInvocationContexts() < actualMethodsForRerun.size()) {
-            List<RunContextTestSummary> tests = com.zebrunner.agent.core.registrar.RunContextService.retrieveFullExecutionPlanTests();
-            Map<TestInvocationContext, Long> invocationContexts = this.getInvocationContexts(tests);
+        ToLongFunction<ITestNGMethod> durations = this.getShardingDurations();
+        List<IMethodInstance> shardMethods = ShardPlanner.select(methods, shardIndex, totalShards, durations);
+        log.info("Shard {} of {} runs {} of {} method(s) of test '{}' (weighted by {})",
+                shardIndex + 1, totalShards, shardMethods.size(), methods.size(), context.getName(),
+                durations == NO_DURATIONS ? "invocation counts" : "durations with fingerprint " + DurationHistory.getFingerprint());
+        return shardMethods;
+    }
 
-            for (IMethodInstance methodInstance : actualMethodsForRerun) {
-                invocationContexts.entrySet()
-                                  .stream()
-                                  .filter(contextAndTestId -> RunContextService.belongsToMethod(contextAndTestId.getKey(), methodInstance.getMethod()))
-                                  .forEach(RunContextService::addInvocationContext);
-            }
+    /**
+     * Shards must weight methods by the same durations, otherwise they compute different assignments.
+     * Durations are used only if the history file is configured and its fingerprint matches the expected one (if configured).
+     */
+    private ToLongFunction<ITestNGMethod> getShardingDurations() {
+        if (TestNGAgentConfiguration.getShardingStrategy() != ShardingStrategy.DURATION || !DurationHistory.isAvailable()) {
+            return NO_DURATIONS;
+        }
+        String expectedFingerprint = TestNGAgentConfiguration.getShardingHistoryFingerprint();
+        if (expectedFingerprint != null && !expectedFingerprint.equalsIgnoreCase(DurationHistory.getFingerprint())) {
+            log.warn("Fingerprint {} of the duration history differs from the expected {}. Methods are split by invocation counts",
+                    DurationHistory.getFingerprint(), expectedFingerprint);
+            return NO_DURATIONS;
         }
+        return DurationHistory::getExpectedMillis;
+    }
 
-        actualMethodsForRerun.forEach(methodInstance -> this.setDataProviderForRerun(methodInstance.getMethod(), runner));
+    /**
+     * Reorders independent methods of a test with {@code parallel="methods"} by their durations from the history, longest first.
+     * Methods of other tests keep the original order.
+     */
+    private List<IMethodInstance> orderLongestFirst(List<IMethodInstance> methods, ITestContext context) {
+        if (!TestNGAgentConfiguration.isLongestFirstOrderingEnabled()
+                || !DurationHistory.isAvailable()
+                || context.getCurrentXmlTest().getParallel() != XmlSuite.ParallelMode.METHODS) {
+            return methods;
+        }
 
-        // We must have the same execution order as it was before manipulations.
-        return methods.stream()
-                      .filter(actualMethodsForRerun::contains)
-                      .collect(Collectors.toList());
+        List<IMethodInstance> orderedMethods = LongestFirstOrdering.order(methods, DurationHistory::getExpectedMillis);
+        log.debug("Method(s) of test '{}' are {}ordered longest first", context.getName(), orderedMethods == methods ? "not " : "");
+        return orderedMethods;
     }
 
     /**
@@ -1,20 +1,17 @@
 package com.zebrunner.agent.testng.listener;
 
-import com.zebrunner.agent.testng.core.FactoryInstanceHolder;
-import com.zebrunner.agent.testng.core.retry.RetryContext;
-import com.zebrunner.agent.testng.core.retry.RetryItemContext;
+import com.zebrunner.agent.testng.core.ExecutionFrame;
+import com.zebrunner.agent.testng.core.MethodKey;
+import com.zebrunner.agent.testng.core.TestContextRegistry;
+import com.zebrunner.agent.testng.core.retry.RetryAnalyzerInterceptor;
+import com.zebrunner.agent.testng.core.retry.RetryAnalyzerKey;
 import lombok.extern.slf4j.Slf4j;
 import org.testng.IRetryAnalyzer;
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
-import org.testng.internal.ConstructorOrMethod;
 
-import java.util.Arrays;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 @Slf4j
 public class RetryService {
@@ -23,90 +20,53 @@ public class RetryService {
     }
 
     public static void setRetryAnalyzerClass(Class<? extends IRetryAnalyzer> retryAnalyzerClass, ITestContext context, ITestNGMethod method) {
-        String key = buildRetryAnalyzerClassKey(method);
-        context.setAttribute(key, retryAnalyzerClass);
+        TestContextRegistry.get(context)
+                           .getRetryAnalyzerClasses()
+                           .put(MethodKey.of(method), retryAnalyzerClass);
     }
 
     public static Optional<Class<? extends IRetryAnalyzer>> getRetryAnalyzerClass(ITestContext context, ITestNGMethod method) {
-        String key = buildRetryAnalyzerClassKey(method);
-        return Optional.ofNullable(((Class<? extends IRetryAnalyzer>) context.getAttribute(key)));
+        TestContextRegistry.Scope scope = TestContextRegistry.find(context);
+        return scope != null
+                ? Optional.ofNullable(scope.getRetryAnalyzerClasses().get(MethodKey.of(method)))
+                : Optional.empty();
     }
 
-    private static String buildRetryAnalyzerClassKey(ITestNGMethod method) {
-        String pattern = "retry-analyzer-class-%s.%s(%s)";
-        ConstructorOrMethod constructorOrMethod = method.getConstructorOrMethod();
-
-        String className = method.getTestClass().getName();
-        String methodName = constructorOrMethod.getName();
-        String argumentTypes = Arrays.stream(constructorOrMethod.getParameterTypes())
-                                     .map(Class::getName)
-                                     .collect(Collectors.joining(","));
-        int instanceIndex = FactoryInstanceHolder.getInstanceIndex(method);
-
-        return String.format(pattern, className, methodName, argumentTypes, instanceIndex);
-    }
-
-    public static String buildRetryAnalyzerClassKey(ITestResult result) {
+    public static RetryAnalyzerKey buildRetryAnalyzerKey(ITestResult result) {
         ITestNGMethod method = result.getMethod();
         ITestContext testContext = result.getTestContext();
         Object[] parameters = result.getParameters();
 
-        String pattern = "[%s]-retry-analyzer-class-%s.%s(%s)[%d][%d]";
-        ConstructorOrMethod constructorOrMethod = method.getConstructorOrMethod();
-
-        String thread = Thread.currentThread().getName();
-        String className = method.getTestClass().getName();
-        String methodName = constructorOrMethod.getName();
-        String argumentTypes = Arrays.stream(constructorOrMethod.getParameterTypes())
-                                     .map(Class::getName)
-                                     .collect(Collectors.joining(","));
-        int instanceIndex = FactoryInstanceHolder.getInstanceIndex(method);
+        long executionId = ExecutionFrame.currentExecutionId();
         int dataProviderIndex = RunContextService.getCurrentDataProviderIndex(method, testContext, parameters);
 
-        return String.format(pattern, thread, className, methodName, argumentTypes, instanceIndex, dataProviderIndex);
+        return new RetryAnalyzerKey(executionId, MethodKey.of(method), dataProviderIndex);
     }
 
     public static void setRetryStarted(ITestNGMethod method, ITestContext context) {
-        getOrInitRetryItemContext(method, context)
-                .setStarted();
+        TestContextRegistry.get(context)
+                           .getRetryStates()
+                           .setStarted(MethodKey.of(method), method.getParameterInvocationCount());
     }
 
     public static void setRetryFinished(ITestNGMethod method, ITestContext context) {
-        getOrInitRetryItemContext(method, context)
-                .setFinished();
-    }
-
-    private static RetryItemContext getOrInitRetryItemContext(ITestNGMethod method, ITestContext context) {
-        RetryContext retryContext = getRetryContext(context)
-                .orElseGet(() -> createRetryContext(context));
-
-        Map<Integer, RetryItemContext> retryItemContexts = retryContext.getRetryItemContexts();
-        if (retryItemContexts == null) {
-            retryItemContexts = new ConcurrentHashMap<>();
-            retryContext.setRetryItemContexts(retryItemContexts);
+        TestContextRegistry.Scope scope = TestContextRegistry.find(context);
+        if (scope != null) {
+            scope.getRetryStates().setFinished(MethodKey.of(method), method.getParameterInvocationCount());
         }
-
-        return retryItemContexts.computeIfAbsent(method.getParameterInvocationCount(), count -> new RetryItemContext());
-    }
-
-    public static boolean isRetryFinished(ITestNGMethod method, ITestContext context) {
-        return getRetryContext(context)
-                .map(RetryContext::getRetryItemContexts)
-                .map(retryItemContext -> retryItemContext.get(method.getParameterInvocationCount()))
-                .map(RetryItemContext::isFinished)
-                .orElse(true);
     }
 
-    private static Optional<RetryContext> getRetryContext(ITestContext context) {
-        String retryContextName = "retry-context-" + Thread.currentThread().getName();
-        return Optional.ofNullable((RetryContext) context.getAttribute(retryContextName));
+    /**
+     * Finishes the retry chain of the test invocation and evicts its original retry analyzer
+     */
+    public static void setRetryFinished(ITestResult result) {
+        RetryService.setRetryFinished(result.getMethod(), result.getTestContext());
+        RetryAnalyzerInterceptor.releaseRetryAnalyzer(result);
     }
 
-    private static RetryContext createRetryContext(ITestContext context) {
-        RetryContext retryContext = new RetryContext();
-        String retryContextName = "retry-context-" + Thread.currentThread().getName();
-        context.setAttribute(retryContextName, retryContext);
-        return retryContext;
+    public static boolean isRetryFinished(ITestNGMethod method, ITestContext context) {
+        TestContextRegistry.Scope scope = TestContextRegistry.find(context);
+        return scope == null || scope.getRetryStates().isFinished(MethodKey.of(method), method.getParameterInvocationCount());
     }
 
 }
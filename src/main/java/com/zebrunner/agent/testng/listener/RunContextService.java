@@ -1,20 +1,24 @@
 package com.zebrunner.agent.testng.listener;
 
+import com.zebrunner.agent.testng.core.ExceptionUtils;
+import com.zebrunner.agent.testng.core.ExecutionFrame;
 import com.zebrunner.agent.testng.core.FactoryInstanceHolder;
+import com.zebrunner.agent.testng.core.MethodKey;
+import com.zebrunner.agent.testng.core.TestContextRegistry;
 import com.zebrunner.agent.testng.core.TestInvocationContext;
 import com.zebrunner.agent.testng.core.TestMethodContext;
+import com.zebrunner.agent.testng.core.dataprovider.DataProviderFingerprints;
+import com.zebrunner.agent.testng.core.rerun.RerunPlanCache;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.testng.ITestContext;
 import org.testng.ITestNGMethod;
-import org.testng.internal.ConstructorOrMethod;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -23,21 +27,60 @@ import java.util.stream.Collectors;
 public class RunContextService {
 
     private static final Map<TestInvocationContext, Long> INVOCATION_CONTEXT_TO_TEST_IDS = new ConcurrentHashMap<>();
+    private static final InvocationContextIndex INVOCATION_CONTEXT_INDEX = new InvocationContextIndex();
+    private static volatile InvocationContextIndex fullExecutionPlanIndex;
 
-    static int countInvocationContexts() {
+    public static int countInvocationContexts() {
         return INVOCATION_CONTEXT_TO_TEST_IDS.size();
     }
 
     static void addInvocationContexts(Map<TestInvocationContext, Long> contexts) {
-        contexts.entrySet()
-                .stream()
-                // filter out tests without invocation context
-                .filter(contextToTestId -> Objects.nonNull(contextToTestId.getKey()))
-                .forEach(RunContextService::addInvocationContext);
+        contexts.forEach((context, testId) -> {
+            // filter out tests without invocation context
+            if (context != null) {
+                RunContextService.addInvocationContext(context, testId);
+            }
+        });
     }
 
-    static void addInvocationContext(Map.Entry<TestInvocationContext, Long> contextToTestId) {
-        RunContextService.INVOCATION_CONTEXT_TO_TEST_IDS.putIfAbsent(contextToTestId.getKey(), contextToTestId.getValue());
+    /**
+     * Adds invocation contexts of the full execution plan belonging to the given test methods.
+     * The full execution plan is loaded and indexed only once, when it is requested for the first time.
+     *
+     * @param methods test methods which invocation contexts must be added
+     */
+    static void addFullExecutionPlanContexts(Collection<ITestNGMethod> methods) {
+        InvocationContextIndex planIndex = RunContextService.getFullExecutionPlanIndex();
+        for (ITestNGMethod method : methods) {
+            planIndex.find(method)
+                     .map(InvocationContextIndex.MethodInvocations::getContextToTestId)
+                     .ifPresent(methodContexts -> methodContexts.forEach(RunContextService::addInvocationContext));
+        }
+    }
+
+    private static InvocationContextIndex getFullExecutionPlanIndex() {
+        InvocationContextIndex planIndex = fullExecutionPlanIndex;
+        if (planIndex == null) {
+            synchronized (RunContextService.class) {
+                planIndex = fullExecutionPlanIndex;
+                if (planIndex == null) {
+                    planIndex = new InvocationContextIndex();
+                    for (Map.Entry<TestInvocationContext, Long> entry : RerunPlanCache.loadFullExecutionPlan().entrySet()) {
+                        if (entry.getKey() != null) {
+                            planIndex.add(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    fullExecutionPlanIndex = planIndex;
+                }
+            }
+        }
+        return planIndex;
+    }
+
+    private static void addInvocationContext(TestInvocationContext context, Long testId) {
+        if (INVOCATION_CONTEXT_TO_TEST_IDS.putIfAbsent(context, testId) == null) {
+            INVOCATION_CONTEXT_INDEX.add(context, testId);
+        }
     }
 
     public static void incrementMethodInvocationIndex(ITestNGMethod method, ITestContext context) {
@@ -66,19 +109,50 @@ public class RunContextService {
                                 .getDataProviderSize();
     }
 
+    public static boolean isDataProviderStreamed(ITestNGMethod method, ITestContext context) {
+        return RunContextService.getMethodContext(method, context)
+                                .map(TestMethodContext::isDataProviderStreamed)
+                                .orElse(false);
+    }
+
     public static void setDataProviderData(ITestNGMethod method, ITestContext context, List<Object[]> dataProviderData) {
         RunContextService.getOrInitRunContext(method, context)
                          .setDataProviderData(dataProviderData);
     }
 
+    public static void setDataProviderFingerprints(ITestNGMethod method, ITestContext context, DataProviderFingerprints dataProviderFingerprints) {
+        RunContextService.getOrInitRunContext(method, context)
+                         .setDataProviderFingerprints(dataProviderFingerprints);
+    }
+
+    /**
+     * Releases data which is needed only while tests of the test context are running
+     *
+     * @return number of released entries and estimated number of released bytes
+     */
+    public static TestContextRegistry.Released releaseTestContext(ITestContext context) {
+        return TestContextRegistry.release(context);
+    }
+
     public static void setCurrentDataProviderIteratorIndex(ITestNGMethod method, ITestContext context, int currentDataProviderIteratorIndex) {
         RunContextService.getOrInitRunContext(method, context)
                          .setCurrentDataProviderIteratorIndex(currentDataProviderIteratorIndex);
     }
 
     public static void setCurrentDataProviderData(ITestNGMethod method, ITestContext context, Object[] currentDataProviderData, int index) {
-        RunContextService.getOrInitRunContext(method, context)
-                         .setCurrentDataProviderData(currentDataProviderData, index);
+        // configuration methods do not have data provider rows and should not take over the execution frame of a test method
+        if (method.isTest()) {
+            RunContextService.getOrInitRunContext(method, context)
+                             .setCurrentDataProviderData(currentDataProviderData, index);
+        }
+    }
+
+    /**
+     * Releases state of the finished test method invocation which is kept for the current thread
+     */
+    public static void releaseCurrentInvocation() {
+        ExecutionFrame.release();
+        ExceptionUtils.releaseStacktrace();
     }
 
     public static int getCurrentDataProviderIndex(ITestNGMethod method, ITestContext context, Object[] parameters) {
@@ -88,41 +162,16 @@ public class RunContextService {
     }
 
     private static TestMethodContext getOrInitRunContext(ITestNGMethod method, ITestContext context) {
-        return RunContextService.getMethodContext(method, context)
-                                .orElseGet(() -> createEmptyRunContext(method, context));
+        return TestContextRegistry.get(context)
+                                  .getMethodContexts()
+                                  .computeIfAbsent(MethodKey.of(method), TestMethodContext::new);
     }
 
     private static Optional<TestMethodContext> getMethodContext(ITestNGMethod method, ITestContext context) {
-        String uniqueNameByInstanceAndSignature = constructMethodUuid(method);
-        return Optional.ofNullable((TestMethodContext) context.getAttribute(uniqueNameByInstanceAndSignature));
-    }
-
-    private static TestMethodContext createEmptyRunContext(ITestNGMethod method, ITestContext context) {
-        TestMethodContext testMethodContext = new TestMethodContext();
-        String uniqueNameByInstanceAndSignature = constructMethodUuid(method);
-
-        context.setAttribute(uniqueNameByInstanceAndSignature, testMethodContext);
-        return testMethodContext;
-    }
-
-    /**
-     * Build unique method signature that ties specific method to specific class instance
-     *
-     * @param method test method
-     * @return method uuid in the following format: "fully-qualified-class-name.method-name(argType1,argType2)[instanceNumber]"
-     */
-    private static String constructMethodUuid(ITestNGMethod method) {
-        String pattern = "%s.%s(%s)[%d]";
-        ConstructorOrMethod constructorOrMethod = method.getConstructorOrMethod();
-
-        String className = method.getTestClass().getName();
-        String methodName = constructorOrMethod.getName();
-        String argumentTypes = Arrays.stream(constructorOrMethod.getParameterTypes())
-                                     .map(Class::getName)
-                                     .collect(Collectors.joining(","));
-        int instanceIndex = FactoryInstanceHolder.getInstanceIndex(method);
-
-        return String.format(pattern, className, methodName, argumentTypes, instanceIndex);
+        TestContextRegistry.Scope scope = TestContextRegistry.find(context);
+        return scope != null
+                ? Optional.ofNullable(scope.getMethodContexts().get(MethodKey.of(method)))
+                : Optional.empty();
     }
 
     /**
@@ -132,25 +181,19 @@ public class RunContextService {
      * @return list of test execution contexts that are eligible for rerun
      */
     public static List<TestInvocationContext> findInvocationsForRerun(ITestNGMethod method) {
-        return INVOCATION_CONTEXT_TO_TEST_IDS.keySet()
-                                             .stream()
-                                             .filter(context -> belongsToMethod(context, method))
-                                             .collect(Collectors.toList());
+        return INVOCATION_CONTEXT_INDEX.find(method)
+                                       .map(InvocationContextIndex.MethodInvocations::getContexts)
+                                       .orElseGet(Collections::emptyList);
     }
 
     public static Optional<Long> getZebrunnerTestIdOnRerun(ITestNGMethod method, Integer dataProviderIndex) {
-        return INVOCATION_CONTEXT_TO_TEST_IDS.keySet()
-                                             .stream()
-                                             .filter(context -> belongsToMethod(context, method))
-                                             .filter(context -> context.getDataProviderIndex() == dataProviderIndex)
-                                             .map(INVOCATION_CONTEXT_TO_TEST_IDS::get)
-                                             .findFirst();
+        return INVOCATION_CONTEXT_INDEX.find(method)
+                                       .flatMap(invocations -> invocations.getTestId(dataProviderIndex));
     }
 
     public static boolean isEligibleForRerun(ITestNGMethod method) {
-        return INVOCATION_CONTEXT_TO_TEST_IDS.keySet()
-                                             .stream()
-                                             .anyMatch(context -> belongsToMethod(context, method));
+        return INVOCATION_CONTEXT_INDEX.find(method)
+                                       .isPresent();
     }
 
     public static boolean belongsToMethod(TestInvocationContext invocationContext, ITestNGMethod method) {
@@ -1,6 +1,9 @@
 package com.zebrunner.agent.testng.listener;
 
 import com.zebrunner.agent.testng.adapter.TestNGAdapter;
+import com.zebrunner.agent.testng.core.TestContextRegistry;
+import com.zebrunner.agent.testng.core.metrics.AgentMetrics;
+import com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.IConfigurationListener;
@@ -30,20 +33,25 @@ public class TestRunListener extends RerunAwareListener implements ISuiteListene
 
     @Override
     public void onStart(ISuite suite) {
+        long startedAt = AgentMetrics.start();
         log.debug("Beginning TestRunListener -> onStart(ISuite suite)");
         adapter.registerRunStart(suite);
         log.debug("Finishing TestRunListener -> onStart(ISuite suite)");
+        AgentMetrics.record("TestRunListener.onStart(ISuite)", startedAt);
     }
 
     @Override
     public void onFinish(ISuite suite) {
+        long startedAt = AgentMetrics.start();
         log.debug("Beginning TestRunListener -> onFinish(ISuite suite)");
         adapter.registerRunFinish(suite);
         log.debug("Finishing TestRunListener -> onFinish(ISuite suite)");
+        AgentMetrics.record("TestRunListener.onFinish(ISuite)", startedAt);
     }
 
     @Override
     public void onTestStart(ITestResult testResult) {
+        long startedAt = AgentMetrics.start();
         log.debug("Beginning TestRunListener -> onTestStart");
         if (RetryService.isRetryFinished(testResult.getMethod(), testResult.getTestContext())) {
             // incrementing invocation count should be done for real tests and not retry!
@@ -51,34 +59,54 @@ public class TestRunListener extends RerunAwareListener implements ISuiteListene
         }
         adapter.registerTestStart(testResult);
         log.debug("Finishing TestRunListener -> onTestStart");
+        AgentMetrics.record("TestRunListener.onTestStart", startedAt);
     }
 
     @Override
     public void onTestSuccess(ITestResult testResult) {
+        long startedAt = AgentMetrics.start();
         log.debug("Beginning TestRunListener -> onTestSuccess");
         adapter.registerTestFinish(testResult);
+        this.releaseFinishedInvocation(testResult);
         log.debug("Finishing TestRunListener -> onTestSuccess");
+        AgentMetrics.record("TestRunListener.onTestSuccess", startedAt);
     }
 
     @Override
     public void onTestFailure(ITestResult testResult) {
+        long startedAt = AgentMetrics.start();
         log.debug("Beginning TestRunListener -> onTestFailure");
         adapter.registerFailedTestFinish(testResult);
+        this.releaseFinishedInvocation(testResult);
         log.debug("Finishing TestRunListener -> onTestFailure");
+        AgentMetrics.record("TestRunListener.onTestFailure", startedAt);
     }
 
     @Override
     public void onTestSkipped(ITestResult testResult) {
+        long startedAt = AgentMetrics.start();
         log.debug("Beginning TestRunListener -> onTestSkipped");
         adapter.registerSkippedTestFinish(testResult);
+        this.releaseFinishedInvocation(testResult);
         log.debug("Finishing TestRunListener -> onTestSkipped");
+        AgentMetrics.record("TestRunListener.onTestSkipped", startedAt);
     }
 
     @Override
     public void onTestFailedButWithinSuccessPercentage(ITestResult testResult) {
+        long startedAt = AgentMetrics.start();
         log.debug("Beginning TestRunListener -> onTestFailedButWithinSuccessPercentage");
         adapter.registerTestFinish(testResult);
+        this.releaseFinishedInvocation(testResult);
         log.debug("Finishing TestRunListener -> onTestFailedButWithinSuccessPercentage");
+        AgentMetrics.record("TestRunListener.onTestFailedButWithinSuccessPercentage", startedAt);
+    }
+
+    private void releaseFinishedInvocation(ITestResult testResult) {
+        // the invocation is not finished while it is being retried
+        if (RetryService.isRetryFinished(testResult.getMethod(), testResult.getTestContext())) {
+            RunContextService.releaseCurrentInvocation();
+        }
     }
 
     @Override
@@ -87,10 +115,20 @@ public class TestRunListener extends RerunAwareListener implements ISuiteListene
 
     @Override
     public void onFinish(ITestContext context) {
+        long startedAt = AgentMetrics.start();
+        log.debug("Beginning TestRunListener -> onFinish(ITestContext context)");
+        TestContextRegistry.Released released = RunContextService.releaseTestContext(context);
+        TestNameResolverRegistry.get().release(context);
+        log.debug("Released {} entries (~{} KB) of the test context '{}'. Live retry analyzers: {}",
+                released.getEntriesCount(), released.getBytesCount() / 1024, context.getName(),
+                TestContextRegistry.countRetryAnalyzers());
+        log.debug("Finishing TestRunListener -> onFinish(ITestContext context)");
+        AgentMetrics.record("TestRunListener.onFinish(ITestContext)", startedAt);
     }
 
     @Override
     public void beforeConfiguration(ITestResult tr, ITestNGMethod tm) {
+        long startedAt = AgentMetrics.start();
         ITestNGMethod testMethod = tr.getMethod();
         if (testMethod instanceof ConfigurationMethod) {
             ConfigurationMethod configurationMethod = (ConfigurationMethod) testMethod;
@@ -102,21 +140,28 @@ public class TestRunListener extends RerunAwareListener implements ISuiteListene
                 adapter.registerAfterTestStart();
             }
         }
+        AgentMetrics.record("TestRunListener.beforeConfiguration", startedAt);
     }
 
     @Override
     public void onConfigurationSuccess(ITestResult tr) {
+        long startedAt = AgentMetrics.start();
         registerFinishOfAfterMethod(tr);
+        AgentMetrics.record("TestRunListener.onConfigurationSuccess", startedAt);
     }
 
     @Override
     public void onConfigurationFailure(ITestResult tr) {
+        long startedAt = AgentMetrics.start();
         registerFinishOfAfterMethod(tr);
+        AgentMetrics.record("TestRunListener.onConfigurationFailure", startedAt);
     }
 
     @Override
     public void onConfigurationSkip(ITestResult tr) {
+        long startedAt = AgentMetrics.start();
         registerFinishOfAfterMethod(tr);
+        AgentMetrics.record("TestRunListener.onConfigurationSkip", startedAt);
     }
 
     private void registerFinishOfAfterMethod(ITestResult testResult) {
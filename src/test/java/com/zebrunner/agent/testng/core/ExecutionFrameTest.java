@@ -0,0 +1,42 @@
+package com.zebrunner.agent.testng.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExecutionFrameTest {
+
+    @Test
+    public void currentExecutionId_ShouldBeKept_UntilInvocationIsReleased() {
+        MethodKey methodKey = MethodKey.of("org.Sample", "test", List.of(), -1);
+
+        ExecutionFrame.bind(methodKey).startInvocation(1);
+        long executionId = ExecutionFrame.currentExecutionId();
+
+        // retries of the invocation share its execution id
+        assertEquals(executionId, ExecutionFrame.currentExecutionId());
+        assertEquals(1, ExecutionFrame.find(methodKey).getInvocationIndex());
+
+        ExecutionFrame.release();
+
+        assertNotEquals(executionId, ExecutionFrame.currentExecutionId());
+        assertNull(ExecutionFrame.find(methodKey));
+    }
+
+    @Test
+    public void startInvocation_ShouldAllocateNewExecutionId_WhenNextInvocationIsStarted() {
+        MethodKey methodKey = MethodKey.of("org.Sample", "invokedTwice", List.of(), -1);
+
+        ExecutionFrame.bind(methodKey).startInvocation(1);
+        long firstExecutionId = ExecutionFrame.currentExecutionId();
+        ExecutionFrame.bind(methodKey).startInvocation(2);
+
+        assertNotEquals(firstExecutionId, ExecutionFrame.currentExecutionId());
+        ExecutionFrame.release();
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.zebrunner.agent.testng.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StacktraceRendererTest {
+
+    @Test
+    public void render_ShouldCollapseFrameworkFramesAndLimitFrames_WhenStacktraceIsLong() {
+        RuntimeException exception = new RuntimeException("failure");
+        StackTraceElement[] frames = new StackTraceElement[100];
+        frames[0] = new StackTraceElement("org.Sample", "test", "Sample.java", 10);
+        frames[1] = new StackTraceElement("jdk.internal.reflect.NativeMethodAccessorImpl", "invoke0", null, -2);
+        frames[2] = new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 566);
+        frames[3] = new StackTraceElement("org.testng.internal.invokers.MethodInvocationHelper", "invokeMethod", "MethodInvocationHelper.java", 139);
+        for (int i = 4; i < frames.length; i++) {
+            frames[i] = new StackTraceElement("org.Frame" + i, "method", "Frame.java", i);
+        }
+        exception.setStackTrace(frames);
+
+        String stacktrace = new StacktraceRenderer(64 * 1024, 10, true).render(exception);
+
+        assertTrue(stacktrace.startsWith("java.lang.RuntimeException: failure"));
+        assertTrue(stacktrace.contains("\tat org.Sample.test(Sample.java:10)"));
+        assertTrue(stacktrace.contains("\t... 3 reflection, TestNG and proxy frames"));
+        assertFalse(stacktrace.contains("MethodInvocationHelper"));
+        assertTrue(stacktrace.contains("\t... 88 frames are truncated"));
+    }
+
+    @Test
+    public void render_ShouldLimitLengthAndMemoizeResult_WhenThrowableIsRenderedTwice() {
+        IllegalStateException cause = new IllegalStateException("cause");
+        RuntimeException exception = new RuntimeException("failure", cause);
+        cause.initCause(new IllegalArgumentException("root"));
+
+        StacktraceRenderer renderer = new StacktraceRenderer(200, 256, true);
+        String stacktrace = renderer.render(exception);
+
+        assertTrue(stacktrace.length() < 300);
+        assertTrue(stacktrace.endsWith("\t... stacktrace is truncated"));
+        assertSame(stacktrace, renderer.render(exception));
+    }
+
+    @Test
+    public void render_ShouldMatchPrintStackTrace_WhenLimitsAndCollapsingAreNotConfigured() {
+        IllegalStateException cause = new IllegalStateException("cause");
+        RuntimeException exception = new RuntimeException("failure", cause);
+        exception.addSuppressed(new IllegalArgumentException("suppressed"));
+        StringWriter expectedStacktrace = new StringWriter();
+        exception.printStackTrace(new PrintWriter(expectedStacktrace));
+
+        StacktraceRenderer renderer = new StacktraceRenderer(Integer.MAX_VALUE, Integer.MAX_VALUE, false);
+
+        assertEquals(expectedStacktrace.toString(), renderer.render(exception));
+    }
+
+    @Test
+    public void render_ShouldUsePrintStackTrace_WhenThrowableOverridesIt() {
+        RuntimeException exception = new RuntimeException("failure") {
+
+            @Override
+            public void printStackTrace(PrintWriter writer) {
+                writer.println("custom stacktrace");
+            }
+
+        };
+        StringWriter expectedStacktrace = new StringWriter();
+        exception.printStackTrace(new PrintWriter(expectedStacktrace));
+
+        StacktraceRenderer renderer = new StacktraceRenderer(Integer.MAX_VALUE, 10, true);
+
+        assertEquals(expectedStacktrace.toString(), renderer.render(exception));
+    }
+
+    @Test
+    public void render_ShouldMatchPrintStackTrace_WhenThrowableOverridesToString() {
+        RuntimeException exception = new RuntimeException("failure", new IllegalStateException("cause") {
+
+            @Override
+            public String toString() {
+                return "custom cause";
+            }
+
+        });
+        StringWriter expectedStacktrace = new StringWriter();
+        exception.printStackTrace(new PrintWriter(expectedStacktrace));
+
+        StacktraceRenderer renderer = new StacktraceRenderer(Integer.MAX_VALUE, Integer.MAX_VALUE, false);
+
+        assertEquals(expectedStacktrace.toString(), renderer.render(exception));
+    }
+
+    @Test
+    public void render_ShouldRenderAgain_WhenMemoizedStacktraceIsReleased() {
+        RuntimeException exception = new RuntimeException("failure");
+        StacktraceRenderer renderer = new StacktraceRenderer(Integer.MAX_VALUE, Integer.MAX_VALUE, false);
+        String stacktrace = renderer.render(exception);
+
+        renderer.release();
+
+        String renderedAgain = renderer.render(exception);
+        assertEquals(stacktrace, renderedAgain);
+        assertNotSame(stacktrace, renderedAgain);
+    }
+
+}
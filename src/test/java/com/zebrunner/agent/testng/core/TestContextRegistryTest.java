@@ -0,0 +1,89 @@
+package com.zebrunner.agent.testng.core;
+
+import org.junit.jupiter.api.Test;
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestClass;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.internal.ConstructorOrMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.zebrunner.agent.testng.core.retry.RetryAnalyzerKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestContextRegistryTest {
+
+    @Test
+    public void release_ShouldRemoveStateOfTestContext_WhenTestContextIsFinished() {
+        ITestNGMethod method = mockMethod("releasedTest");
+        ITestContext context = mock(ITestContext.class);
+        when(context.getAllTestMethods()).thenReturn(new ITestNGMethod[]{method});
+        MethodKey methodKey = MethodKey.of(method);
+
+        TestMethodContext methodContext = new TestMethodContext(methodKey);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Object[]{"row-" + i, i});
+        }
+        methodContext.setDataProviderData(rows);
+        TestContextRegistry.get(context).getMethodContexts().put(methodKey, methodContext);
+        TestContextRegistry.get(context).getRetryStates().setStarted(methodKey, 1);
+
+        assertSame(TestContextRegistry.get(context), TestContextRegistry.find(context));
+
+        TestContextRegistry.Released released = TestContextRegistry.release(context);
+
+        // method context, its rows and the retry chain state
+        assertEquals(1002, released.getEntriesCount());
+        assertTrue(released.getBytesCount() > 1000 * 24);
+        assertNull(TestContextRegistry.find(context));
+    }
+
+    @Test
+    public void release_ShouldKeepRetryChainsOfOtherTestContexts_WhenTestContextsRunSameMethod() {
+        ITestNGMethod method = mockMethod("sharedTest");
+        ITestContext finishedContext = mock(ITestContext.class);
+        when(finishedContext.getAllTestMethods()).thenReturn(new ITestNGMethod[]{method});
+        ITestContext runningContext = mock(ITestContext.class);
+        when(runningContext.getAllTestMethods()).thenReturn(new ITestNGMethod[]{method});
+
+        RetryAnalyzerKey retryAnalyzerKey = new RetryAnalyzerKey(1, MethodKey.of(method), -1);
+        IRetryAnalyzer retryAnalyzer = result -> true;
+        TestContextRegistry.get(finishedContext).getRetryAnalyzers().put(retryAnalyzerKey, result -> false);
+        TestContextRegistry.get(runningContext).getRetryAnalyzers().put(retryAnalyzerKey, retryAnalyzer);
+        TestContextRegistry.get(finishedContext).getRetryStates().setStarted(MethodKey.of(method), 1);
+        TestContextRegistry.get(runningContext).getRetryStates().setStarted(MethodKey.of(method), 1);
+
+        TestContextRegistry.release(finishedContext);
+
+        assertSame(retryAnalyzer, TestContextRegistry.get(runningContext).getRetryAnalyzers().get(retryAnalyzerKey));
+        assertFalse(TestContextRegistry.get(runningContext).getRetryStates().isFinished(MethodKey.of(method), 1));
+        TestContextRegistry.release(runningContext);
+    }
+
+    private static ITestNGMethod mockMethod(String methodName) {
+        ITestClass testClass = mock(ITestClass.class);
+        when(testClass.getName()).thenReturn("org.Sample");
+
+        ConstructorOrMethod constructorOrMethod = mock(ConstructorOrMethod.class);
+        when(constructorOrMethod.getName()).thenReturn(methodName);
+        when(constructorOrMethod.getParameterTypes()).thenReturn(new Class<?>[0]);
+
+        ITestNGMethod method = mock(ITestNGMethod.class);
+        when(method.getTestClass()).thenReturn(testClass);
+        when(method.getMethodName()).thenReturn(methodName);
+        when(method.getConstructorOrMethod()).thenReturn(constructorOrMethod);
+
+        return method;
+    }
+
+}
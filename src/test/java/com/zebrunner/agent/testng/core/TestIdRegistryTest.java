@@ -0,0 +1,88 @@
+package com.zebrunner.agent.testng.core;
+
+import org.junit.jupiter.api.Test;
+import org.testng.ITestClass;
+import org.testng.ITestNGMethod;
+import org.testng.internal.ConstructorOrMethod;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestIdRegistryTest {
+
+    @Test
+    public void getOrAllocate_ShouldReturnSameId_WhenTestExecutionIsNotReleased() {
+        ITestNGMethod method = mockMethod("test");
+
+        String id = TestIdRegistry.getOrAllocate(method, 2, 1);
+
+        assertEquals(id, TestIdRegistry.getOrAllocate(method, 2, 1));
+        // the first invocation can be identified before the invocation index is incremented
+        assertEquals(id, TestIdRegistry.getOrAllocate(method, 2, 0));
+        assertNotEquals(id, TestIdRegistry.getOrAllocate(method, 3, 1));
+        assertNotEquals(id, TestIdRegistry.getOrAllocate(method, 2, 2));
+        assertNotEquals(id, TestIdRegistry.getOrAllocate(mockMethod("anotherTest"), 2, 1));
+    }
+
+    @Test
+    public void release_ShouldFreeId_WhenTestExecutionIsFinished() {
+        ITestNGMethod method = mockMethod("releasedTest");
+        int allocatedIdsCount = TestIdRegistry.countAllocatedIds();
+
+        String id = TestIdRegistry.getOrAllocate(method, -1, 1);
+        assertEquals(allocatedIdsCount + 1, TestIdRegistry.countAllocatedIds());
+
+        TestIdRegistry.release(id);
+
+        assertEquals(allocatedIdsCount, TestIdRegistry.countAllocatedIds());
+        assertNotEquals(id, TestIdRegistry.getOrAllocate(method, -1, 1));
+    }
+
+    @Test
+    public void allocateHeadless_ShouldNotRetainId_WhenHeadlessTestIsStarted() {
+        int allocatedIdsCount = TestIdRegistry.countAllocatedIds();
+
+        String id = TestIdRegistry.allocateHeadless();
+
+        assertNotEquals(id, TestIdRegistry.allocateHeadless());
+        assertEquals(allocatedIdsCount, TestIdRegistry.countAllocatedIds());
+    }
+
+    @Test
+    public void getOrAllocate_ShouldReturnDifferentIds_WhenInvocationsAreExecutedByThreadsWithSameName() throws InterruptedException {
+        ITestNGMethod method = mockMethod("concurrentTest");
+        String[] ids = new String[2];
+
+        Thread[] threads = new Thread[ids.length];
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+            // virtual threads are unnamed
+            threads[i] = new Thread(() -> ids[index] = TestIdRegistry.getOrAllocate(method, -1, 1), "");
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNotEquals(ids[0], ids[1]);
+    }
+
+    private static ITestNGMethod mockMethod(String methodName) {
+        ITestClass testClass = mock(ITestClass.class);
+        when(testClass.getName()).thenReturn("org.Sample");
+
+        ConstructorOrMethod constructorOrMethod = mock(ConstructorOrMethod.class);
+        when(constructorOrMethod.getName()).thenReturn(methodName);
+        when(constructorOrMethod.getParameterTypes()).thenReturn(new Class<?>[0]);
+
+        ITestNGMethod method = mock(ITestNGMethod.class);
+        when(method.getTestClass()).thenReturn(testClass);
+        when(method.getMethodName()).thenReturn(methodName);
+        when(method.getConstructorOrMethod()).thenReturn(constructorOrMethod);
+
+        return method;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.zebrunner.agent.testng.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestMethodContextTest {
+
+    @Test
+    public void incrementInvocationIndex_ShouldIndexInvocationsPerThread_WhenMethodIsInvokedByThreadPool() throws Exception {
+        TestMethodContext context = new TestMethodContext(MethodKey.of("org.Sample", "pooledTest", List.of(), -1));
+
+        context.incrementInvocationIndex();
+        context.incrementInvocationIndex();
+        assertEquals(2, context.getCurrentInvocationIndex());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the same indices are reported for the invocations of another thread, so they match on a rerun
+            List<Integer> otherThreadIndices = CompletableFuture.supplyAsync(() -> {
+                context.incrementInvocationIndex();
+                int firstIndex = context.getCurrentInvocationIndex();
+                ExecutionFrame.release();
+                context.incrementInvocationIndex();
+                return List.of(firstIndex, context.getCurrentInvocationIndex());
+            }, executor).get();
+
+            assertEquals(List.of(1, 2), otherThreadIndices);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        context.incrementInvocationIndex();
+        assertEquals(3, context.getCurrentInvocationIndex());
+        ExecutionFrame.release();
+    }
+
+}
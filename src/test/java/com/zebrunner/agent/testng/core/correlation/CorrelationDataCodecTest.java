@@ -0,0 +1,74 @@
+package com.zebrunner.agent.testng.core.correlation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorrelationDataCodecTest {
+
+    @Test
+    public void decode_ShouldRestoreContext_WhenContextIsEncodedInCompactFormat() {
+        TestInvocationContext context = TestInvocationContext.builder()
+                                                             .thread("pool-1|thread,1")
+                                                             .className("org.Sample")
+                                                             .methodName("test")
+                                                             .displayName(null)
+                                                             .parameters(Arrays.asList("a|b", "c,d\\e", "", "\\-", null))
+                                                             .parameterClassNames(List.of("java.lang.String", "[Ljava.lang.Object;"))
+                                                             .dataProviderIndex(3)
+                                                             .instanceIndex(-1)
+                                                             .invocationIndex(2)
+                                                             .build();
+
+        String correlationData = CorrelationDataCodec.encodeCompact(context);
+
+        assertTrue(correlationData.startsWith(CorrelationDataCodec.COMPACT_FORMAT_PREFIX));
+        assertEquals(context, CorrelationDataCodec.decode(correlationData));
+    }
+
+    @Test
+    public void read_ShouldAcceptLegacyJson_WhenCorrelationDataIsNotCompact() {
+        TestInvocationContext context = TestInvocationContext.builder()
+                                                             .className("org.Sample")
+                                                             .methodName("test")
+                                                             .parameters(List.of())
+                                                             .parameterClassNames(List.of())
+                                                             .dataProviderIndex(-1)
+                                                             .instanceIndex(0)
+                                                             .invocationIndex(1)
+                                                             .build();
+
+        CorrelationDataReader reader = new CorrelationDataReader();
+
+        assertEquals(context, reader.read(context.asJsonString()));
+        assertEquals(context, reader.read(CorrelationDataCodec.encodeCompact(context)));
+        assertNull(reader.read(null));
+        assertNull(reader.read(CorrelationDataCodec.COMPACT_FORMAT_PREFIX + "broken"));
+    }
+
+    @Test
+    public void read_ShouldShareMethodStrings_WhenContextsBelongToSameMethod() {
+        TestInvocationContext.TestInvocationContextBuilder builder = TestInvocationContext.builder()
+                                                                                          .className("org.Sample")
+                                                                                          .methodName("test")
+                                                                                          .parameters(List.of("1"))
+                                                                                          .parameterClassNames(List.of("int"))
+                                                                                          .instanceIndex(-1);
+        CorrelationDataReader reader = new CorrelationDataReader();
+
+        TestInvocationContext first = reader.read(CorrelationDataCodec.encodeCompact(builder.dataProviderIndex(0).build()));
+        TestInvocationContext second = reader.read(CorrelationDataCodec.encodeCompact(builder.dataProviderIndex(1).build()));
+
+        assertSame(first.getClassName(), second.getClassName());
+        assertSame(first.getParameterClassNames(), second.getParameterClassNames());
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.zebrunner.agent.testng.core.dataprovider;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DataProviderDataIndexTest {
+
+    @Test
+    public void find_ShouldReturnFirstMatchingRow_WhenRowsHaveSameHash() {
+        Object[] first = { new SameHash("a") };
+        Object[] second = { new SameHash("b") };
+        Object[] third = { new SameHash("b") };
+        DataProviderDataIndex index = new DataProviderDataIndex(List.of(first, second, third));
+
+        assertEquals(Optional.of(2), index.findReferenceEqual(third));
+        assertEquals(Optional.of(1), index.findValueEqual(new Object[] { new SameHash("b") }));
+        assertEquals(Optional.of(1), index.findStringSame(new Object[] { "b" }));
+        assertEquals(Optional.empty(), index.findValueEqual(new Object[] { new SameHash("c") }));
+        assertEquals(Optional.empty(), index.findReferenceEqual(new Object[] { new SameHash("a") }));
+    }
+
+    private static final class SameHash {
+
+        private final String value;
+
+        private SameHash(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SameHash && ((SameHash) o).value.equals(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.zebrunner.agent.testng.core.dataprovider;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DataProviderFingerprintsTest {
+
+    @Test
+    public void find_ShouldResolveRowIndex_WhenRowsAreNotRetained() {
+        DataProviderFingerprints fingerprints = new DataProviderFingerprints();
+        for (int i = 0; i < 10_000; i++) {
+            fingerprints.add(i, new Object[] { "row", i });
+        }
+
+        assertEquals(10_000, fingerprints.getRowsCount());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(Optional.of(i), fingerprints.findValueEqual(new Object[] { "row", i }));
+            assertEquals(Optional.of(i), fingerprints.findStringSame(new Object[] { "row", String.valueOf(i) }));
+        }
+        assertEquals(Optional.empty(), fingerprints.findValueEqual(new Object[] { "row", 10_000 }));
+    }
+
+    @Test
+    public void find_ShouldNotResolveRow_WhenFingerprintIsAmbiguous() {
+        DataProviderFingerprints fingerprints = new DataProviderFingerprints();
+        fingerprints.add(3, new Object[] { "same" });
+        fingerprints.add(5, new Object[] { "same" });
+
+        assertEquals(6, fingerprints.getRowsCount());
+        assertEquals(Optional.empty(), fingerprints.findValueEqual(new Object[] { "same" }));
+        assertEquals(Optional.empty(), fingerprints.findStringSame(new Object[] { "same" }));
+    }
+
+    @Test
+    public void find_ShouldResolveRows_WhenRowHashCodesCollide() {
+        DataProviderFingerprints fingerprints = new DataProviderFingerprints();
+        // "Aa" and "BB" have the same String.hashCode()
+        fingerprints.add(0, new Object[] { "Aa" });
+        fingerprints.add(1, new Object[] { "BB" });
+
+        assertEquals(Optional.of(0), fingerprints.findValueEqual(new Object[] { "Aa" }));
+        assertEquals(Optional.of(1), fingerprints.findValueEqual(new Object[] { "BB" }));
+        assertEquals(Optional.of(1), fingerprints.findStringSame(new Object[] { "BB" }));
+    }
+
+}
@@ -91,6 +91,19 @@ class DependantMethodResolverTest {
         dependantMethods.forEach(dependantMethod -> assertTrue(expectedResult.contains(dependantMethod)));
     }
 
+    @ParameterizedTest(name = DISPLAY_NAME_PLACEHOLDER)
+    @MethodSource("provideMethodsTreeWithCyclicDependencies")
+    public void resolve_ShouldResolveDependantMethods_WhenDependenciesContainCycles(
+            Collection<IMethodInstance> methodsSuperSet,
+            Collection<IMethodInstance> methodToResolve,
+            Collection<IMethodInstance> expectedResult
+    ) {
+        Set<IMethodInstance> dependantMethods = DependantMethodResolver.resolve(methodsSuperSet, methodToResolve);
+
+        assertEquals(dependantMethods.size(), expectedResult.size());
+        dependantMethods.forEach(dependantMethod -> assertTrue(expectedResult.contains(dependantMethod)));
+    }
+
     //------------------------------------------------------------------------------------------------------------------
     // DATA PROVIDERS
     //------------------------------------------------------------------------------------------------------------------
@@ -223,6 +236,35 @@ class DependantMethodResolverTest {
         );
     }
 
+    private static Stream<Arguments> provideMethodsTreeWithCyclicDependencies() {
+        ITestClass testClass = mockTestClass();
+
+        IMethodInstance rootLevelMethod = mockIMethodInstance(
+                "rootLevelMethod", testClass, emptySet(), setOf("DT11"), setOf("DG1")
+        );
+        Set<IMethodInstance> dependantMethods = setOf(
+                // DT - dependant test, DG - dependant group, DT first number - tree level
+                mockIMethodInstance("DT11", testClass, emptySet(), setOf("DT21"), emptySet()),
+                mockIMethodInstance("DT21", testClass, emptySet(), setOf("DT11", "DT22"), emptySet()),
+                mockIMethodInstance("DT22", testClass, emptySet(), emptySet(), emptySet()),
+
+                mockIMethodInstance("DT12", testClass, setOf("DG1"), emptySet(), setOf("DG2")),
+                mockIMethodInstance("DT23", testClass, setOf("DG2"), emptySet(), setOf("DG1"))
+        );
+        Set<IMethodInstance> otherMethods = setOf(
+                mockIMethodInstance("T1", testClass, emptySet(), setOf("DT11"), emptySet())
+        );
+
+        Set<IMethodInstance> methodsSuperSet = Stream.of(setOf(rootLevelMethod), dependantMethods, otherMethods)
+                                                     .flatMap(Collection::stream)
+                                                     .collect(Collectors.toSet());
+        Set<IMethodInstance> methodsToResolve = setOf(rootLevelMethod);
+
+        return Stream.of(
+                Arguments.of(methodsSuperSet, methodsToResolve, dependantMethods)
+        );
+    }
+
     private static Stream<Arguments> provideMethodsTreesWithDifferentFactoryInstances() {
         Set<ITestClass> factoryInstances = new HashSet<>();
 
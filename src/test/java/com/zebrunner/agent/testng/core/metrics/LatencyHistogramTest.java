@@ -0,0 +1,38 @@
+package com.zebrunner.agent.testng.core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void getValueAtPercentile_ShouldBeWithinBucketPrecision_WhenValuesAreRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMaxNanos());
+        assertWithinPrecision(50_000_000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(99_000_000, histogram.getValueAtPercentile(99));
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketIndex_ShouldMapValueToBucketWithLowerOrEqualLowestValue_WhenValueIsRecorded() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int bucketIndex = LatencyHistogram.bucketIndex(value);
+
+            assertTrue(LatencyHistogram.lowestValue(bucketIndex) <= value);
+            assertTrue(bucketIndex + 1 == 960 || LatencyHistogram.lowestValue(bucketIndex + 1) > value);
+        }
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 16, "Expected ~" + expected + " but was " + actual);
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.zebrunner.agent.testng.core.registrar;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.zebrunner.agent.core.registrar.TestRunRegistrar;
+import com.zebrunner.agent.core.registrar.domain.Status;
+import com.zebrunner.agent.core.registrar.domain.TestFinish;
+import com.zebrunner.agent.core.registrar.domain.TestRunFinish;
+import com.zebrunner.agent.core.registrar.domain.TestStart;
+import com.zebrunner.agent.testng.core.config.TestNGAgentConfiguration.OverflowPolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class AsyncTestRunRegistrarTest {
+
+    @Test
+    public void registerTestFinish_ShouldBeDeliveredAfterTestStart_WhenBothAreDispatchedFromTheSameThread() {
+        TestRunRegistrar delegate = mock(TestRunRegistrar.class);
+        List<String> deliveredEvents = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(50);
+            return deliveredEvents.add("start-" + invocation.getArgument(0));
+        }).when(delegate).registerTestStart(anyString(), any());
+        doAnswer(invocation -> deliveredEvents.add("finish-" + invocation.getArgument(0)))
+                .when(delegate).registerTestFinish(anyString(), any());
+
+        AsyncTestRunRegistrar registrar = new AsyncTestRunRegistrar(delegate, 100, OverflowPolicy.BLOCK, 4);
+        for (int i = 0; i < 3; i++) {
+            registrar.registerTestStart("test-" + i, TestStart.builder().build());
+            registrar.registerTestFinish("test-" + i, new TestFinish(Status.PASSED));
+        }
+        registrar.registerFinish(new TestRunFinish(null));
+
+        assertEquals(
+                List.of("start-test-0", "finish-test-0", "start-test-1", "finish-test-1", "start-test-2", "finish-test-2"),
+                deliveredEvents
+        );
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).registerTestFinish(anyString(), any());
+        inOrder.verify(delegate).registerFinish(any());
+    }
+
+    @Test
+    public void registerTestStart_ShouldNotWaitForDelegate_WhenDelegateIsSlow() throws InterruptedException {
+        TestRunRegistrar delegate = mock(TestRunRegistrar.class);
+        CountDownLatch delegateReleased = new CountDownLatch(1);
+        doAnswer(invocation -> delegateReleased.await(10, TimeUnit.SECONDS))
+                .when(delegate).registerTestStart(anyString(), any());
+
+        AsyncTestRunRegistrar registrar = new AsyncTestRunRegistrar(delegate, 100, OverflowPolicy.BLOCK, 4);
+        registrar.registerTestStart("test", TestStart.builder().build());
+
+        assertTrue(registrar.isTestStarted());
+        assertTrue(registrar.isTestStarted("test"));
+        assertEquals(1, registrar.getPendingEventsCount());
+
+        delegateReleased.countDown();
+        registrar.flush();
+
+        assertEquals(0, registrar.getPendingEventsCount());
+    }
+
+    @Test
+    public void registerTestStart_ShouldDropAllEventsOfTest_WhenQueueIsFullAndPolicyIsDrop() {
+        TestRunRegistrar delegate = mock(TestRunRegistrar.class);
+        CountDownLatch delegateReleased = new CountDownLatch(1);
+        doAnswer(invocation -> delegateReleased.await(10, TimeUnit.SECONDS))
+                .when(delegate).registerTestStart(eq("test-1"), any());
+
+        AsyncTestRunRegistrar registrar = new AsyncTestRunRegistrar(delegate, 1, OverflowPolicy.DROP, 4);
+        registrar.registerTestStart("test-1", TestStart.builder().build());
+        registrar.registerTestStart("test-2", TestStart.builder().build());
+        assertTrue(registrar.isTestStarted("test-2"));
+        registrar.registerTestFinish("test-2", new TestFinish(Status.PASSED));
+        registrar.registerAfterTestStart();
+
+        assertEquals(3, registrar.getDroppedEventsCount());
+
+        delegateReleased.countDown();
+        registrar.registerTestFinish("test-1", new TestFinish(Status.PASSED));
+        registrar.flush();
+
+        verify(delegate, never()).registerTestStart(eq("test-2"), any());
+        verify(delegate, never()).registerTestFinish(eq("test-2"), any());
+        verify(delegate, never()).registerAfterTestStart();
+        verify(delegate).registerTestFinish(eq("test-1"), any());
+        assertFalse(registrar.isTestStarted());
+        assertFalse(registrar.isTestStarted("test-1"));
+        assertFalse(registrar.isTestStarted("test-2"));
+    }
+
+    @Test
+    public void registerTestStart_ShouldBeDeliveredOnCallingThread_WhenAllLanesAreLeased() throws Exception {
+        TestRunRegistrar delegate = mock(TestRunRegistrar.class);
+        Map<String, Thread> testIdToDeliveringThread = new ConcurrentHashMap<>();
+        doAnswer(invocation -> testIdToDeliveringThread.put(invocation.getArgument(0), Thread.currentThread()))
+                .when(delegate).registerTestStart(anyString(), any());
+
+        AsyncTestRunRegistrar registrar = new AsyncTestRunRegistrar(delegate, 100, OverflowPolicy.BLOCK, 1);
+        CompletableFuture.runAsync(() -> registrar.registerTestStart("test-1", TestStart.builder().build())).get();
+        registrar.registerTestStart("test-2", TestStart.builder().build());
+        registrar.flush();
+
+        assertTrue(testIdToDeliveringThread.get("test-1").getName().startsWith("zebrunner-reporting-"));
+        assertSame(Thread.currentThread(), testIdToDeliveringThread.get("test-2"));
+    }
+
+    @Test
+    public void isKnownIssueAttachedToTest_ShouldWaitForVerdict_WhenDelegateIsSlow() {
+        TestRunRegistrar delegate = mock(TestRunRegistrar.class);
+        doAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(50);
+            return true;
+        }).when(delegate).isKnownIssueAttachedToTest(anyString());
+
+        AsyncTestRunRegistrar registrar = new AsyncTestRunRegistrar(delegate, 100, OverflowPolicy.BLOCK, 4);
+        registrar.registerTestStart("test", TestStart.builder().build());
+
+        assertTrue(registrar.isKnownIssueAttachedToTest("stacktrace"));
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).registerTestStart(anyString(), any());
+        inOrder.verify(delegate).isKnownIssueAttachedToTest("stacktrace");
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.zebrunner.agent.testng.core.rerun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import com.zebrunner.agent.core.registrar.domain.RunContextTestSummary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class RerunPlanCacheTest {
+
+    @Test
+    public void describe_ShouldNotDependOnOrder_WhenPlanIsTheSame() {
+        assertEquals(
+                RerunPlanCache.describe(List.of(summary(1L, "a"), summary(2L, "b"))),
+                RerunPlanCache.describe(List.of(summary(2L, "b"), summary(1L, "a")))
+        );
+    }
+
+    @Test
+    public void describe_ShouldChange_WhenPlanOnZebrunnerChanges() {
+        String description = RerunPlanCache.describe(List.of(summary(1L, "a"), summary(2L, "b")));
+
+        assertNotEquals(description, RerunPlanCache.describe(List.of(summary(1L, "a"), summary(3L, "b"))));
+        assertNotEquals(description, RerunPlanCache.describe(List.of(summary(1L, "a"), summary(2L, "c"))));
+        assertNotEquals(description, RerunPlanCache.describe(List.of(summary(1L, "a"))));
+    }
+
+    private static RunContextTestSummary summary(Long id, String correlationData) {
+        RunContextTestSummary summary = new RunContextTestSummary();
+        summary.setId(id);
+        summary.setCorrelationData(correlationData);
+        return summary;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.zebrunner.agent.testng.core.rerun;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RerunPlanFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void read_ShouldRestoreWrittenContexts_WhenFileIsWritten() throws IOException {
+        Map<TestInvocationContext, Long> plan = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            TestInvocationContext context = TestInvocationContext.builder()
+                                                                 .className("org.Sample")
+                                                                 .methodName("test")
+                                                                 .parameters(List.of("value-" + i))
+                                                                 .parameterClassNames(List.of("java.lang.String"))
+                                                                 .dataProviderIndex(i)
+                                                                 .instanceIndex(-1)
+                                                                 .invocationIndex(1)
+                                                                 .build();
+            plan.put(context, 1000L + i);
+        }
+        plan.put(null, 1L);
+
+        Path file = directory.resolve("cache").resolve("rerun-plan.bin");
+        RerunPlanFile.write(file, plan);
+        plan.remove(null);
+
+        assertEquals(plan, RerunPlanFile.read(file));
+    }
+
+    @Test
+    public void read_ShouldThrowException_WhenFileHasUnknownFormat() throws IOException {
+        Path file = Files.write(directory.resolve("rerun-plan.bin"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+        assertThrows(IOException.class, () -> RerunPlanFile.read(file));
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.zebrunner.agent.testng.core.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KnownIssueMatcherTest {
+
+    @Test
+    public void isKnownIssueAttached_ShouldAskZebrunnerOnce_WhenFailureDiffersOnlyInIdentityHashes() {
+        KnownIssueMatcher matcher = new KnownIssueMatcher();
+        MethodKey methodKey = MethodKey.of("org.Sample", "test", List.of(), -1);
+        AtomicInteger remoteChecksCount = new AtomicInteger();
+
+        assertTrue(matcher.isKnownIssueAttached(methodKey, 1, "java.lang.AssertionError: org.Page@1a2b3c4d\n\tat org.Sample.test",
+                stacktrace -> remoteChecksCount.incrementAndGet() > 0));
+        assertTrue(matcher.isKnownIssueAttached(methodKey, 1, "java.lang.AssertionError: org.Page@5e6f7a8b \n\tat org.Sample.test",
+                stacktrace -> remoteChecksCount.incrementAndGet() > 0));
+        assertEquals(1, remoteChecksCount.get());
+
+        matcher.isKnownIssueAttached(methodKey, 2, "java.lang.AssertionError: org.Page@5e6f7a8b\n\tat org.Sample.test",
+                stacktrace -> remoteChecksCount.incrementAndGet() > 0);
+        assertEquals(2, remoteChecksCount.get());
+    }
+
+    @Test
+    public void isKnownIssueAttached_ShouldWaitForPendingVerdict_WhenTheSameFailureIsCheckedConcurrently() throws Exception {
+        KnownIssueMatcher matcher = new KnownIssueMatcher();
+        MethodKey methodKey = MethodKey.of("org.Sample", "test", List.of(), -1);
+        CountDownLatch remoteCheckStarted = new CountDownLatch(1);
+        CountDownLatch remoteCheckReleased = new CountDownLatch(1);
+        AtomicInteger remoteChecksCount = new AtomicInteger();
+
+        CompletableFuture<Boolean> firstVerdict = CompletableFuture.supplyAsync(
+                () -> matcher.isKnownIssueAttached(methodKey, 1, "java.lang.AssertionError", stacktrace -> {
+                    remoteChecksCount.incrementAndGet();
+                    remoteCheckStarted.countDown();
+                    try {
+                        return remoteCheckReleased.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+        );
+        assertTrue(remoteCheckStarted.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> secondVerdict = CompletableFuture.supplyAsync(
+                () -> matcher.isKnownIssueAttached(methodKey, 1, "java.lang.AssertionError", stacktrace -> remoteChecksCount.incrementAndGet() < 0)
+        );
+
+        remoteCheckReleased.countDown();
+
+        assertTrue(firstVerdict.get(10, TimeUnit.SECONDS));
+        assertTrue(secondVerdict.get(10, TimeUnit.SECONDS));
+        assertEquals(1, remoteChecksCount.get());
+    }
+
+}
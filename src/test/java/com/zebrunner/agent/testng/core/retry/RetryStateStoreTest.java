@@ -0,0 +1,34 @@
+package com.zebrunner.agent.testng.core.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryStateStoreTest {
+
+    @Test
+    public void isFinished_ShouldBeScopedToThreadAndReleased_WhenRetryChainIsFinished() throws Exception {
+        MethodKey methodKey = MethodKey.of("org.Sample", "test", List.of(), -1);
+        RetryStateStore retryStates = new RetryStateStore();
+
+        retryStates.setStarted(methodKey, 3);
+
+        assertFalse(retryStates.isFinished(methodKey, 3));
+        assertTrue(retryStates.isFinished(methodKey, 2));
+        assertTrue(CompletableFuture.supplyAsync(() -> retryStates.isFinished(methodKey, 3)).get());
+        assertEquals(1, retryStates.countInProgress());
+
+        retryStates.setFinished(methodKey, 3);
+
+        assertTrue(retryStates.isFinished(methodKey, 3));
+        assertEquals(0, retryStates.countInProgress());
+    }
+
+}
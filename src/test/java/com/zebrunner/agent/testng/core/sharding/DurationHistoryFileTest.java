@@ -0,0 +1,43 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DurationHistoryFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void read_ShouldRestoreWrittenDurations_WhenFileIsWritten() throws IOException {
+        Map<String, Map<Integer, Long>> methodToRows = new HashMap<>();
+        methodToRows.put("org.Sample.test()#-1", Map.of(-1, 1500L));
+        Map<Integer, Long> rows = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            rows.put(i, 10L + i);
+        }
+        methodToRows.put("org.Sample.test(java.lang.String)#2", rows);
+
+        Path file = directory.resolve("cache").resolve("duration-history.bin");
+        DurationHistoryFile.write(file, methodToRows);
+
+        assertEquals(methodToRows, DurationHistoryFile.read(file));
+    }
+
+    @Test
+    public void read_ShouldThrowException_WhenFileHasUnknownFormat() throws IOException {
+        Path file = Files.write(directory.resolve("duration-history.bin"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+        assertThrows(IOException.class, () -> DurationHistoryFile.read(file));
+    }
+
+}
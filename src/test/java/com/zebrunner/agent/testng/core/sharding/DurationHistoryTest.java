@@ -0,0 +1,30 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DurationHistoryTest {
+
+    @Test
+    public void fingerprint_ShouldDependOnContentOnly_WhenEntriesAreInDifferentOrder() {
+        Map<String, Map<Integer, Long>> history = new LinkedHashMap<>();
+        history.put("org.Sample.first()#-1", Map.of(-1, 100L));
+        history.put("org.Sample.second(java.lang.String)#-1", Map.of(0, 10L, 1, 20L));
+
+        Map<String, Map<Integer, Long>> reversedHistory = new LinkedHashMap<>();
+        reversedHistory.put("org.Sample.second(java.lang.String)#-1", Map.of(1, 20L, 0, 10L));
+        reversedHistory.put("org.Sample.first()#-1", Map.of(-1, 100L));
+
+        Map<String, Map<Integer, Long>> changedHistory = new LinkedHashMap<>(history);
+        changedHistory.put("org.Sample.first()#-1", Map.of(-1, 101L));
+
+        assertEquals(DurationHistory.fingerprint(history), DurationHistory.fingerprint(reversedHistory));
+        assertNotEquals(DurationHistory.fingerprint(history), DurationHistory.fingerprint(changedHistory));
+    }
+
+}
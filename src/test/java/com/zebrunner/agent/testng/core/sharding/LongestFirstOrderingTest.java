@@ -0,0 +1,69 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.testng.IMethodInstance;
+import org.testng.ITestClass;
+import org.testng.ITestNGMethod;
+import org.testng.internal.ConstructorOrMethod;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LongestFirstOrderingTest {
+
+    @Test
+    public void order_ShouldStartLongestMethodsFirstKeepingChainsAndPriorities_WhenDurationsAreKnown() {
+        IMethodInstance shortMethod = mockMethodInstance("short", 0, new String[0]);
+        IMethodInstance chainStep1 = mockMethodInstance("chainStep1", 0, new String[0]);
+        IMethodInstance chainStep2 = mockMethodInstance("chainStep2", 0, new String[]{"org.Sample.chainStep1"});
+        IMethodInstance unknownMethod = mockMethodInstance("unknown", 0, new String[0]);
+        IMethodInstance longMethod = mockMethodInstance("long", 0, new String[0]);
+        IMethodInstance prioritizedMethod = mockMethodInstance("prioritized", -1, new String[0]);
+        Map<String, Long> durations = Map.of("short", 10L, "chainStep1", 30L, "chainStep2", 30L, "long", 100L, "prioritized", 1L);
+        ToLongFunction<ITestNGMethod> durationFunction = method -> durations.getOrDefault(method.getMethodName(), -1L);
+
+        List<IMethodInstance> methods = List.of(shortMethod, chainStep1, chainStep2, unknownMethod, longMethod, prioritizedMethod);
+
+        assertEquals(List.of(prioritizedMethod, longMethod, chainStep1, chainStep2, unknownMethod, shortMethod),
+                LongestFirstOrdering.order(methods, durationFunction));
+    }
+
+    @Test
+    public void order_ShouldKeepOriginalOrder_WhenNoDurationIsKnown() {
+        List<IMethodInstance> methods = List.of(mockMethodInstance("first", 0, new String[0]),
+                mockMethodInstance("second", 0, new String[0]));
+
+        assertSame(methods, LongestFirstOrdering.order(methods, method -> -1));
+    }
+
+    private static IMethodInstance mockMethodInstance(String methodName, int priority, String[] dependantMethods) {
+        ITestClass testClass = mock(ITestClass.class);
+        when(testClass.getName()).thenReturn("org.Sample");
+
+        ConstructorOrMethod constructorOrMethod = mock(ConstructorOrMethod.class);
+        when(constructorOrMethod.getName()).thenReturn(methodName);
+        when(constructorOrMethod.getParameterTypes()).thenReturn(new Class<?>[0]);
+
+        ITestNGMethod method = mock(ITestNGMethod.class);
+        when(method.getTestClass()).thenReturn(testClass);
+        when(method.getMethodName()).thenReturn(methodName);
+        when(method.getQualifiedName()).thenReturn("org.Sample." + methodName);
+        when(method.getConstructorOrMethod()).thenReturn(constructorOrMethod);
+        when(method.getInvocationCount()).thenReturn(1);
+        when(method.getPriority()).thenReturn(priority);
+        when(method.getGroups()).thenReturn(new String[0]);
+        when(method.getMethodsDependedUpon()).thenReturn(dependantMethods);
+        when(method.getGroupsDependedUpon()).thenReturn(new String[0]);
+
+        IMethodInstance instance = mock(IMethodInstance.class);
+        when(instance.getMethod()).thenReturn(method);
+        return instance;
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.zebrunner.agent.testng.core.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.testng.IMethodInstance;
+import org.testng.ITestClass;
+import org.testng.ITestNGMethod;
+import org.testng.internal.ConstructorOrMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShardPlannerTest {
+
+    @Test
+    public void select_ShouldSplitMethodsKeepingDependantMethodsTogether_WhenSeveralShardsAreConfigured() {
+        List<IMethodInstance> methods = new ArrayList<>();
+        methods.add(mockMethodInstance("chainStep1", new String[0], new String[0], new String[0]));
+        methods.add(mockMethodInstance("chainStep2", new String[0], new String[]{"org.Sample.chainStep1"}, new String[0]));
+        methods.add(mockMethodInstance("chainStep3", new String[0], new String[]{"org.Sample.chainStep2"}, new String[0]));
+        methods.add(mockMethodInstance("setUpData", new String[]{"data"}, new String[0], new String[0]));
+        methods.add(mockMethodInstance("useData", new String[0], new String[0], new String[]{"data"}));
+        for (int i = 0; i < 10; i++) {
+            methods.add(mockMethodInstance("independent" + i, new String[]{"smoke"}, new String[0], new String[0]));
+        }
+
+        List<IMethodInstance> reversedMethods = new ArrayList<>(methods);
+        Collections.reverse(reversedMethods);
+
+        Set<IMethodInstance> allShardMethods = new HashSet<>();
+        int totalShards = 3;
+        for (int shardIndex = 0; shardIndex < totalShards; shardIndex++) {
+            List<IMethodInstance> shardMethods = ShardPlanner.select(methods, shardIndex, totalShards, method -> -1);
+
+            // the assignment does not depend on the order of the methods
+            assertEquals(new HashSet<>(shardMethods), new HashSet<>(ShardPlanner.select(reversedMethods, shardIndex, totalShards, method -> -1)));
+            // the original order is kept
+            assertEquals(methods.stream().filter(shardMethods::contains).collect(Collectors.toList()), shardMethods);
+            assertTrue(shardMethods.size() >= 4 && shardMethods.size() <= 6, "Shard is not balanced: " + shardMethods.size());
+            assertTrue(!shardMethods.contains(methods.get(0)) || shardMethods.containsAll(methods.subList(0, 3)));
+            assertTrue(!shardMethods.contains(methods.get(3)) || shardMethods.contains(methods.get(4)));
+
+            shardMethods.forEach(method -> assertTrue(allShardMethods.add(method), "Method is assigned to several shards"));
+        }
+        assertEquals(methods.size(), allShardMethods.size());
+    }
+
+    @Test
+    public void select_ShouldBalanceShardsByDurations_WhenDurationsAreKnown() {
+        List<IMethodInstance> methods = new ArrayList<>();
+        methods.add(mockMethodInstance("heavy", new String[0], new String[0], new String[0]));
+        for (int i = 0; i < 9; i++) {
+            methods.add(mockMethodInstance("light" + i, new String[0], new String[0], new String[0]));
+        }
+        ToLongFunction<ITestNGMethod> durations = method -> method.getMethodName().equals("heavy") ? 100 : 10;
+
+        List<IMethodInstance> firstShardMethods = ShardPlanner.select(methods, 0, 2, durations);
+        List<IMethodInstance> secondShardMethods = ShardPlanner.select(methods, 1, 2, durations);
+
+        List<IMethodInstance> heavyShardMethods = firstShardMethods.contains(methods.get(0)) ? firstShardMethods : secondShardMethods;
+        List<IMethodInstance> lightShardMethods = heavyShardMethods == firstShardMethods ? secondShardMethods : firstShardMethods;
+        assertEquals(List.of(methods.get(0)), heavyShardMethods);
+        assertEquals(methods.subList(1, 10), lightShardMethods);
+    }
+
+    private static IMethodInstance mockMethodInstance(String methodName,
+                                                      String[] groups,
+                                                      String[] dependantMethods,
+                                                      String[] dependantGroups) {
+        ITestClass testClass = mock(ITestClass.class);
+        when(testClass.getName()).thenReturn("org.Sample");
+
+        ConstructorOrMethod constructorOrMethod = mock(ConstructorOrMethod.class);
+        when(constructorOrMethod.getName()).thenReturn(methodName);
+        when(constructorOrMethod.getParameterTypes()).thenReturn(new Class<?>[0]);
+
+        ITestNGMethod method = mock(ITestNGMethod.class);
+        when(method.getTestClass()).thenReturn(testClass);
+        when(method.getMethodName()).thenReturn(methodName);
+        when(method.getQualifiedName()).thenReturn("org.Sample." + methodName);
+        when(method.getConstructorOrMethod()).thenReturn(constructorOrMethod);
+        when(method.getInvocationCount()).thenReturn(1);
+        when(method.getGroups()).thenReturn(groups);
+        when(method.getMethodsDependedUpon()).thenReturn(dependantMethods);
+        when(method.getGroupsDependedUpon()).thenReturn(dependantGroups);
+
+        IMethodInstance instance = mock(IMethodInstance.class);
+        when(instance.getMethod()).thenReturn(method);
+        return instance;
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.zebrunner.agent.testng.core.testname;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.testng.ISuite;
+import org.testng.ITestClass;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.internal.ConstructorOrMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.zebrunner.agent.testng.core.MethodKey;
+import com.zebrunner.agent.testng.core.TestContextRegistry;
+import com.zebrunner.agent.testng.core.TestMethodContext;
+import com.zebrunner.agent.testng.core.dataprovider.DataProviderFingerprints;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultTestNameResolverTest {
+
+    @ParameterizedTest
+    @CsvSource({"0, 2", "7, 2", "42, 3", "42, 2", "12345, 3", "-5, 3"})
+    public void appendZeroPadded_ShouldMatchStringFormat_WhenValueIsPadded(int value, int length) {
+        StringBuilder output = new StringBuilder();
+
+        DefaultTestNameResolver.appendZeroPadded(output, value, length);
+
+        assertEquals(String.format("%0" + length + "d", value), output.toString());
+    }
+
+    @Test
+    public void resolve_ShouldNotPadLineNumber_WhenDataProviderRowsAreStreamed() throws Exception {
+        ITestNGMethod method = mockMethod("streamedTest", 1);
+        ITestContext context = mockContext(method);
+        DataProviderFingerprints fingerprints = new DataProviderFingerprints();
+        TestMethodContext methodContext = new TestMethodContext(MethodKey.of(method));
+        methodContext.setDataProviderFingerprints(fingerprints);
+        TestContextRegistry.get(context).getMethodContexts().put(MethodKey.of(method), methodContext);
+
+        DefaultTestNameResolver resolver = new DefaultTestNameResolver();
+        for (int i = 0; i < 10; i++) {
+            fingerprints.add(i, new Object[]{"row-" + i});
+        }
+        String ninthRowName = resolver.resolve(mockResult(method, context, new Object[]{"row-8"}));
+        for (int i = 10; i < 1000; i++) {
+            fingerprints.add(i, new Object[]{"row-" + i});
+        }
+
+        assertEquals("streamedTest [L9]", ninthRowName);
+        assertEquals("streamedTest [L9]", resolver.resolve(mockResult(method, context, new Object[]{"row-8"})));
+        assertEquals("streamedTest [L999]", resolver.resolve(mockResult(method, context, new Object[]{"row-998"})));
+        TestContextRegistry.release(context);
+    }
+
+    @Test
+    public void resolve_ShouldNumberInvocationsAcrossTestContexts_WhenTestNameIsShared() throws Exception {
+        ITestNGMethod firstInstanceMethod = mockMethod("repeatedTest", 3);
+        ITestNGMethod secondInstanceMethod = mockMethod("repeatedTest", 3);
+        ITestNGMethod otherContextMethod = mockMethod("repeatedTest", 3);
+        ITestContext context = mockContext(firstInstanceMethod, secondInstanceMethod);
+        ITestContext otherContext = mockContext(otherContextMethod);
+
+        // suites can't be mocked without Guice, so all the mocked contexts belong to the same (null) suite
+        DefaultTestNameResolver resolver = new DefaultTestNameResolver() {
+            @Override
+            List<ITestNGMethod> getAllMethods(ISuite suite) {
+                return List.of(firstInstanceMethod, secondInstanceMethod, otherContextMethod);
+            }
+        };
+        List<String> testNames = new ArrayList<>();
+        for (ITestNGMethod method : List.of(firstInstanceMethod, secondInstanceMethod)) {
+            for (int i = 0; i < 3; i++) {
+                testNames.add(resolver.resolve(mockResult(method, context, new Object[0])));
+            }
+        }
+        resolver.release(context);
+        for (int i = 0; i < 3; i++) {
+            testNames.add(resolver.resolve(mockResult(otherContextMethod, otherContext, new Object[0])));
+        }
+
+        assertEquals(List.of("repeatedTest [InvCount=01]", "repeatedTest [InvCount=02]", "repeatedTest [InvCount=03]",
+                "repeatedTest [InvCount=04]", "repeatedTest [InvCount=05]", "repeatedTest [InvCount=06]",
+                "repeatedTest [InvCount=07]", "repeatedTest [InvCount=08]", "repeatedTest [InvCount=09]"), testNames);
+        // the counter is evicted once all the expected invocations within the suite are counted
+        assertEquals("repeatedTest [InvCount=01]", resolver.resolve(mockResult(otherContextMethod, otherContext, new Object[0])));
+    }
+
+    private static ITestNGMethod mockMethod(String methodName, int invocationCount) throws Exception {
+        ITestClass testClass = mock(ITestClass.class);
+        when(testClass.getName()).thenReturn("org.Sample");
+
+        ConstructorOrMethod constructorOrMethod = mock(ConstructorOrMethod.class);
+        when(constructorOrMethod.getName()).thenReturn(methodName);
+        when(constructorOrMethod.getParameterTypes()).thenReturn(new Class<?>[0]);
+        when(constructorOrMethod.getMethod()).thenReturn(Object.class.getMethod("toString"));
+
+        ITestNGMethod method = mock(ITestNGMethod.class);
+        when(method.getTestClass()).thenReturn(testClass);
+        when(method.getMethodName()).thenReturn(methodName);
+        when(method.getConstructorOrMethod()).thenReturn(constructorOrMethod);
+        when(method.getInvocationCount()).thenReturn(invocationCount);
+        return method;
+    }
+
+    private static ITestContext mockContext(ITestNGMethod... methods) {
+        ITestContext context = mock(ITestContext.class);
+        when(context.getAllTestMethods()).thenReturn(methods);
+        return context;
+    }
+
+    private static ITestResult mockResult(ITestNGMethod method, ITestContext context, Object[] parameters) {
+        ITestResult result = mock(ITestResult.class);
+        when(result.getMethod()).thenReturn(method);
+        when(result.getTestContext()).thenReturn(context);
+        when(result.getParameters()).thenReturn(parameters);
+        return result;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.zebrunner.agent.testng.listener;
+
+import org.junit.jupiter.api.Test;
+import org.testng.ITestClass;
+import org.testng.ITestNGMethod;
+import org.testng.internal.ConstructorOrMethod;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.zebrunner.agent.testng.core.TestInvocationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InvocationContextIndexTest {
+
+    @Test
+    public void find_ShouldReturnInvocationsByDataProviderIndex_WhenMethodSignatureMatches() {
+        InvocationContextIndex index = new InvocationContextIndex();
+        index.add(buildContext("test", List.of("java.lang.String"), 0), 10L);
+        index.add(buildContext("test", List.of("java.lang.String"), 1), 11L);
+
+        ITestNGMethod method = mockMethod("test", String.class);
+        Optional<InvocationContextIndex.MethodInvocations> invocations = index.find(method);
+
+        assertTrue(invocations.isPresent());
+        assertEquals(2, invocations.get().getContexts().size());
+        assertEquals(Optional.of(10L), invocations.get().getTestId(0));
+        assertEquals(Optional.of(11L), invocations.get().getTestId(1));
+        assertEquals(Optional.empty(), invocations.get().getTestId(2));
+    }
+
+    @Test
+    public void find_ShouldReturnEmpty_WhenParameterTypesDiffer() {
+        InvocationContextIndex index = new InvocationContextIndex();
+        index.add(buildContext("test", List.of("java.lang.String"), 0), 10L);
+
+        assertFalse(index.find(mockMethod("test", Integer.class)).isPresent());
+        assertFalse(index.find(mockMethod("test")).isPresent());
+        assertFalse(index.find(mockMethod("anotherTest", String.class)).isPresent());
+    }
+
+    private static TestInvocationContext buildContext(String methodName, List<String> parameterClassNames, int dataProviderIndex) {
+        return TestInvocationContext.builder()
+                                    .className("org.Sample")
+                                    .methodName(methodName)
+                                    .parameters(List.of())
+                                    .parameterClassNames(parameterClassNames)
+                                    .dataProviderIndex(dataProviderIndex)
+                                    .instanceIndex(-1)
+                                    .build();
+    }
+
+    private static ITestNGMethod mockMethod(String methodName, Class<?>... parameterTypes) {
+        ITestClass testClass = mock(ITestClass.class);
+        when(testClass.getName()).thenReturn("org.Sample");
+
+        ConstructorOrMethod constructorOrMethod = mock(ConstructorOrMethod.class);
+        when(constructorOrMethod.getName()).thenReturn(methodName);
+        when(constructorOrMethod.getParameterTypes()).thenReturn(parameterTypes);
+
+        ITestNGMethod method = mock(ITestNGMethod.class);
+        when(method.getTestClass()).thenReturn(testClass);
+        when(method.getMethodName()).thenReturn(methodName);
+        when(method.getConstructorOrMethod()).thenReturn(constructorOrMethod);
+
+        return method;
+    }
+
+}